@@ -5,9 +5,11 @@ import static de.robv.android.xposed.XposedHelpers.findAndHookMethod;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.os.Build;
+import android.os.Bundle;
 
 import org.luckypray.dexkit.DexKitBridge;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -30,11 +32,20 @@ import ps.reso.instaeclipse.mods.misc.AutoPlayDisable;
 import ps.reso.instaeclipse.mods.misc.FollowerIndicator;
 import ps.reso.instaeclipse.mods.misc.StoryFlipping;
 import ps.reso.instaeclipse.mods.network.Interceptor;
+import ps.reso.instaeclipse.mods.network.ResponseFilter;
 import ps.reso.instaeclipse.mods.ui.UIHookManager;
+import ps.reso.instaeclipse.mods.ui.utils.BottomSheetHookUtil;
 import ps.reso.instaeclipse.utils.core.CommonUtils;
+import ps.reso.instaeclipse.utils.core.ProcessProfile;
 import ps.reso.instaeclipse.utils.core.SettingsManager;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryScheduler;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureManager;
+import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 
 @SuppressLint("UnsafeDynamicallyLoadedCode")
@@ -42,10 +53,14 @@ public class Module implements IXposedHookLoadPackage, IXposedHookZygoteInit {
     // List of supported Instagram package names
     private static final List<String> SUPPORTED_PACKAGES = Arrays.asList(CommonUtils.IG_PACKAGE_NAME, // Original package name
             "com.instagram.android", "com.instagold.android", "com.instaflux.app", "com.myinsta.android", "cc.honista.app", "com.instaprime.android", "com.instafel.android", "com.instadm.android", "com.dfistagram.android", "com.Instander.android", "com.aero.instagram", "com.instapro.android", "com.instaflow.android", "com.instagram1.android", "com.instagram2.android", "com.instagramclone.android", "com.instaclone.android");
+    // Features that should be hooked before Instagram's main activity is created
+    private static final Feature[] READY_BEFORE_ACTIVITY = {Feature.GHOST_SEEN, Feature.GHOST_TYPING, Feature.GHOST_SCREENSHOT, Feature.GHOST_VIEW_ONCE, Feature.GHOST_STORIES};
+    private static final long READY_TIMEOUT_MS = 1500;
     public static DexKitBridge dexKitBridge;
     public static ClassLoader hostClassLoader;
     private static String moduleSourceDir;
     private static String moduleLibDir;
+    private static String hostSourceDir;
 
     // for dev usage
     /*
@@ -110,15 +125,8 @@ public class Module implements IXposedHookLoadPackage, IXposedHookZygoteInit {
         // Hook into Instagram and its clones
         if (SUPPORTED_PACKAGES.contains(lpparam.packageName)) {
             try {
-                if (dexKitBridge == null) {
-                    // Load the .so file from your module (if not already loaded)
-                    System.load(moduleLibDir + "/libdexkit.so");
-                    // XposedBridge.log("libdexkit.so loaded successfully.");
-
-                    // Initialize DexKitBridge with the target app's APK
-                    dexKitBridge = DexKitBridge.create(lpparam.appInfo.sourceDir);
-                    // XposedBridge.log("DexKitBridge initialized with target APK: " + lpparam.appInfo.sourceDir);
-                }
+                // DexKitBridge is created lazily, only when a feature misses the discovery cache
+                hostSourceDir = lpparam.appInfo.sourceDir;
 
                 // Use the target app's ClassLoader
                 hostClassLoader = lpparam.classLoader;
@@ -132,6 +140,49 @@ public class Module implements IXposedHookLoadPackage, IXposedHookZygoteInit {
         }
     }
 
+    /**
+     * Returns the DexKitBridge for the host APK, loading libdexkit.so and creating the bridge
+     * on first use. Returns null if the bridge could not be initialized.
+     */
+    public static synchronized DexKitBridge getDexKitBridge() {
+        if (dexKitBridge == null && hostSourceDir != null) {
+            try {
+                // Load the .so file from your module (if not already loaded)
+                try (StartupTracer.Section ignored = StartupTracer.section(StartupTracer.MODULE, "loadLibrary")) {
+                    System.load(moduleLibDir + "/libdexkit.so");
+                }
+
+                // Initialize DexKitBridge with the target app's APK
+                try (StartupTracer.Section ignored = StartupTracer.section(StartupTracer.MODULE, "bridgeCreate")) {
+                    dexKitBridge = DexKitBridge.create(hostSourceDir);
+                }
+                XposedBridge.log("(InstaEclipse): DexKitBridge initialized with target APK: " + hostSourceDir);
+            } catch (Throwable t) {
+                XposedBridge.log("(InstaEclipse): Failed to initialize DexKitBridge: " + t.getMessage());
+            }
+        }
+        return dexKitBridge;
+    }
+
+    /**
+     * Closes the host DexKitBridge so its native dex index is freed once discovery is done.
+     * A later {@link #getDexKitBridge()} call creates a new one.
+     */
+    public static synchronized void releaseDexKitBridge() {
+        if (dexKitBridge == null || hostSourceDir == null) {
+            return;
+        }
+
+        try {
+            dexKitBridge.close();
+            XposedBridge.log("(InstaEclipse): DexKitBridge closed after discovery");
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse): Failed to close DexKitBridge: " + t.getMessage());
+        } finally {
+            dexKitBridge = null;
+        }
+    }
+
     private void hookOwnModule(XC_LoadPackage.LoadPackageParam lpparam) {
         try {
             findAndHookMethod(CommonUtils.MY_PACKAGE_NAME + ".MainActivity", lpparam.classLoader, "isModuleActive", XC_MethodReplacement.returnConstant(true));
@@ -141,6 +192,66 @@ public class Module implements IXposedHookLoadPackage, IXposedHookZygoteInit {
         }
     }
 
+    // Descriptors are cached by now; free DexKit's native index and persist new resolutions
+    private static void finishDiscovery() {
+        StartupTracer.recordMemory("beforeRelease");
+        StringAnchors.clear();
+        releaseDexKitBridge();
+        StartupTracer.recordMemory("afterRelease");
+
+        DiscoveryCache.save();
+
+        StartupTracer.markDiscoveryDone();
+        StartupTracer.writeReport();
+    }
+
+    /**
+     * Holds InstagramMainActivity.onCreate, bounded, until the enabled ghost features are
+     * hooked, so nothing is marked as seen by the first screen while discovery is still running.
+     */
+    private static void hookReadinessBarrier(DiscoveryScheduler discovery) {
+        try {
+            XposedHelpers.findAndHookMethod("com.instagram.mainactivity.InstagramMainActivity", hostClassLoader, "onCreate", Bundle.class, new XC_MethodHook() {
+                @Override
+                protected void beforeHookedMethod(MethodHookParam param) {
+                    List<Feature> required = new ArrayList<>();
+                    for (Feature feature : READY_BEFORE_ACTIVITY) {
+                        if (FeatureStatusTracker.isEnabled(feature)) {
+                            required.add(feature);
+                        }
+                    }
+
+                    if (!discovery.await(READY_TIMEOUT_MS, required.toArray(new Feature[0]))) {
+                        XposedBridge.log("(InstaEclipse | Discovery): ⏳ Continuing before " + required + " were ready");
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse | Discovery): ❌ Failed to hook readiness barrier: " + t.getMessage());
+        }
+    }
+
+    private static void hookFollowerIndicator(FollowerIndicator followerIndicator) {
+        try {
+            FollowerIndicator.FollowMethodResult result = followerIndicator.resolveFollowerStatusMethod();
+
+            if (result != null && (FeatureFlags.showFollowerToast || FeatureFlags.showStoryHiddenToast)) {
+
+                String userIdClass = followerIndicator.resolveUserIdClass(result.userClassName);
+
+                try (StartupTracer.Section ignored = StartupTracer.section(Feature.SHOW_FOLLOWER_TOAST.displayName, "hookMethod")) {
+                    followerIndicator.checkFollow(hostClassLoader, result.methodName, result.isBlockingReelMethodName, result.userClassName, userIdClass);
+                }
+
+            } else {
+                XposedBridge.log("(InstaEclipse | FollowerToast): ❌ Method not found");
+            }
+        } catch (Throwable e) {
+
+            XposedBridge.log("(InstaEclipse | FollowerToast): ❌ Failed to hook + " + e);
+        }
+    }
+
     private void hookInstagram(XC_LoadPackage.LoadPackageParam lpparam) {
 
         try {
@@ -153,63 +264,81 @@ public class Module implements IXposedHookLoadPackage, IXposedHookZygoteInit {
 
                     // Setup context, preferences
                     Context context = (Context) param.args[0];
+                    StartupTracer.init(context, lpparam.processName);
                     SettingsManager.init(context);
                     SettingsManager.loadAllFlags(context);
-                    FeatureManager.refreshFeatureStatus(); // Update internal feature states
-
-                    UIHookManager instagramUI = new UIHookManager();
-                    instagramUI.mainActivity(hostClassLoader);
 
-                    XposedBridge.log("(InstaEclipse): " + lpparam.packageName + " package detected. Starting feature hooks...");
-
-                    Interceptor interceptor = new Interceptor();
-
-                    // --- Feature Hooks ---
-
-                    // Developer Options
-                    try {
-                        new DevOptionsEnable().handleDevOptions(dexKitBridge);
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | DevOptions): ❌ Failed to hook");
-                    }
-
-                    // Ghost Mode
-                    try {
-                        new SeenState().handleSeenBlock(dexKitBridge); // DM Seen
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | GhostSeen): ❌ Failed to hook");
+                    // Endpoint observers, routed by the Interceptor in any process that installs it
+                    FollowerIndicator.observeProfileRequests();
+
+                    // Secondary processes skip discovery and UI hooks
+                    ProcessProfile profile = ProcessProfile.forProcess(lpparam.packageName, lpparam.processName);
+                    StartupTracer.setProfile(profile.name());
+                    XposedBridge.log("(InstaEclipse): " + lpparam.processName + " → " + profile + " profile");
+                    if (profile != ProcessProfile.FULL) {
+                        if (profile == ProcessProfile.NETWORK) {
+                            try {
+                                new Interceptor().handleInterceptor(lpparam);
+                            } catch (Throwable ignored) {
+                                XposedBridge.log("(InstaEclipse | Interceptor): ❌ Failed to hook");
+                            }
+                        }
+                        StartupTracer.markAttachDone();
+                        StartupTracer.writeReport();
+                        return;
                     }
 
-                    try {
-                        new TypingStatus().handleTypingBlock(dexKitBridge); // DM Typing
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | GhostTyping): ❌ Failed to hook");
-                    }
+                    FeatureManager.refreshFeatureStatus(); // Update internal feature states
 
-                    try {
-                        new ScreenshotDetection().handleScreenshotBlock(dexKitBridge); // Screenshot
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | GhostScreenshot): ❌ Failed to hook");
-                    }
+                    // Resolutions from the previous launch of this exact APK, if any
+                    DiscoveryCache.init(context, moduleSourceDir);
 
-                    try {
-                        new ViewOnce().handleViewOnceBlock(dexKitBridge); // View Once
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | GhostViewOnce): ❌ Failed to hook");
-                    }
+                    XposedBridge.log("(InstaEclipse): " + lpparam.packageName + " package detected. Starting feature hooks...");
 
-                    try {
-                        new StorySeen().handleStorySeenBlock(dexKitBridge); // Story Seen
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | GhostStorySeen): ❌ Failed to hook");
-                    }
+                    DevOptionsEnable devOptions = new DevOptionsEnable();
+                    SeenState seenState = new SeenState();
+                    TypingStatus typingStatus = new TypingStatus();
+                    ScreenshotDetection screenshotDetection = new ScreenshotDetection();
+                    ViewOnce viewOnce = new ViewOnce();
+                    StorySeen storySeen = new StorySeen();
+                    AdBlocker adBlocker = new AdBlocker();
+                    ResponseFilter responseFilter = new ResponseFilter();
+                    StoryFlipping storyFlipping = new StoryFlipping();
+                    AutoPlayDisable autoPlayDisable = new AutoPlayDisable();
+                    FollowerIndicator followerIndicator = new FollowerIndicator();
+
+                    // --- DexKit Feature Hooks ---
+                    // Resolvers are independent and run concurrently; hooks are installed one at a time
+                    DiscoveryScheduler discovery = new DiscoveryScheduler()
+                            // Developer Options
+                            .add(Feature.DEV_OPTIONS, devOptions::resolveDevOptionsMethods, devOptions::handleDevOptions)
+                            // Ghost Mode
+                            .add(Feature.GHOST_SEEN, seenState::resolveSeenMethods, seenState::handleSeenBlock)
+                            .add(Feature.GHOST_TYPING, typingStatus::resolveTypingMethods, typingStatus::handleTypingBlock)
+                            .add(Feature.GHOST_SCREENSHOT, screenshotDetection::resolveScreenshotMethods, screenshotDetection::handleScreenshotBlock)
+                            .add(Feature.GHOST_VIEW_ONCE, viewOnce::resolveViewOnceMethods, viewOnce::handleViewOnceBlock)
+                            .add(Feature.GHOST_STORIES, storySeen::resolveStorySeenMethods, storySeen::handleStorySeenBlock)
+                            // Ads Blocker
+                            .add(Feature.AD_BLOCKER, adBlocker::resolveSponsoredMethods, () -> adBlocker.disableSponsoredContent(hostClassLoader))
+                            // Miscellaneous
+                            .add("StoryFlipping", storyFlipping::resolveStoryFlippingMethods, storyFlipping::handleStoryFlippingDisable)
+                            .add("AutoPlayDisable", autoPlayDisable::resolveAutoPlayMethods, autoPlayDisable::handleAutoPlayDisable)
+                            // Ad stripping and data saver, on the response side
+                            .add(Feature.RESPONSE_FILTER, responseFilter::resolveParserFactoryMethods, () -> responseFilter.handleResponseFilter(hostClassLoader))
+                            .add(Feature.SHOW_FOLLOWER_TOAST, () -> {
+                                FollowerIndicator.FollowMethodResult result = followerIndicator.resolveFollowerStatusMethod();
+                                if (result != null && (FeatureFlags.showFollowerToast || FeatureFlags.showStoryHiddenToast)) {
+                                    followerIndicator.resolveUserIdClass(result.userClassName);
+                                }
+                            }, () -> hookFollowerIndicator(followerIndicator), Feature.SHOW_STORY_HIDDEN_TOAST)
+                            // getBottomSheetNavigator - Instagram Main
+                            .add("BottomSheet", BottomSheetHookUtil::resolveBottomSheetNavigatorMethods, BottomSheetHookUtil::hookBottomSheetNavigator);
+
+                    // --- Synchronous Hooks ---
+                    // These must exist before Instagram's first activity or request
 
-                    // Ads Blocker
-                    try {
-                        new AdBlocker().disableSponsoredContent(dexKitBridge, hostClassLoader);
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | AdBlocker): ❌ Failed to hook");
-                    }
+                    UIHookManager instagramUI = new UIHookManager();
+                    instagramUI.mainActivity(hostClassLoader);
 
                     // tracking link disable
                     try {
@@ -218,43 +347,22 @@ public class Module implements IXposedHookLoadPackage, IXposedHookZygoteInit {
                         XposedBridge.log("(InstaEclipse | TrackingLinkDisable): ❌ Failed to hook");
                     }
 
-                    // Miscellaneous
-                    try {
-                        new StoryFlipping().handleStoryFlippingDisable(dexKitBridge); // Story Flipping
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | StoryFlipping): ❌ Failed to hook");
-                    }
-
+                    // Network Interceptor
                     try {
-                        new AutoPlayDisable().handleAutoPlayDisable(dexKitBridge); // Video Autoplay
+                        new Interceptor().handleInterceptor(lpparam);
                     } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | AutoPlayDisable): ❌ Failed to hook");
+                        XposedBridge.log("(InstaEclipse | Interceptor): ❌ Failed to hook");
                     }
 
-                    try {
-                        FollowerIndicator followerIndicator = new FollowerIndicator();
-                        FollowerIndicator.FollowMethodResult result = followerIndicator.findFollowerStatusMethod(Module.dexKitBridge);
-
-                        if (result != null && (FeatureFlags.showFollowerToast || FeatureFlags.showStoryHiddenToast)) {
-
-                            String userIdClass = followerIndicator.findUserIdClassIfNeeded(Module.dexKitBridge, result.userClassName);
-
-                            followerIndicator.checkFollow(hostClassLoader, result.methodName, result.isBlockingReelMethodName, result.userClassName, userIdClass);
-
-                        } else {
-                            XposedBridge.log("(InstaEclipse | FollowerToast): ❌ Method not found");
-                        }
-                    } catch (Throwable e) {
-
-                        XposedBridge.log("(InstaEclipse | FollowerToast): ❌ Failed to hook + " + e);
+                    if (FeatureFlags.loadFeaturesInBackground) {
+                        hookReadinessBarrier(discovery);
+                        discovery.start(Module::finishDiscovery);
+                    } else {
+                        discovery.runAll();
+                        finishDiscovery();
                     }
 
-                    // Network Interceptor
-                    try {
-                        interceptor.handleInterceptor(lpparam);
-                    } catch (Throwable ignored) {
-                        XposedBridge.log("(InstaEclipse | Interceptor): ❌ Failed to hook");
-                    }
+                    StartupTracer.markAttachDone();
 
                 }
 
@@ -1,7 +1,10 @@
 package ps.reso.instaeclipse.fragments;
 
 import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.net.Uri;
@@ -27,8 +30,11 @@ import java.util.Arrays;
 import java.util.List;
 
 import ps.reso.instaeclipse.R;
+import ps.reso.instaeclipse.mods.devops.config.BlocklistImportActivity;
+import ps.reso.instaeclipse.mods.devops.config.HookManifestImportActivity;
 import ps.reso.instaeclipse.utils.core.CommonUtils;
 import ps.reso.instaeclipse.utils.core.Contributor;
+import ps.reso.instaeclipse.utils.discovery.PreScanner;
 
 public class HomeFragment extends Fragment {
 
@@ -37,6 +43,15 @@ public class HomeFragment extends Fragment {
     private TextView instagramStatusText;
     private ImageView instagramLogo, instagramInfoIcon;
 
+    // Manifest receivers for PACKAGE_REPLACED don't fire on O+, so listen while visible
+    private final BroadcastReceiver instagramUpdateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (intent.getData() != null && CommonUtils.IG_PACKAGE_NAME.equals(intent.getData().getSchemeSpecificPart())) {
+                preScanInstagram();
+            }
+        }
+    };
 
     @Nullable
     @Override
@@ -48,6 +63,8 @@ public class HomeFragment extends Fragment {
         // Initialize views
         launchInstagramButton = view.findViewById(R.id.launch_instagram_button);
         MaterialButton downloadButton = view.findViewById(R.id.download_instagram_button);
+        MaterialButton importManifestButton = view.findViewById(R.id.import_manifest_button);
+        MaterialButton importBlocklistButton = view.findViewById(R.id.import_blocklist_button);
 
 
         // Find the Card, TextView and Logo to display Instagram status
@@ -78,12 +95,46 @@ public class HomeFragment extends Fragment {
             startActivity(intent);
         });
 
+        // Import a hook manifest exported from another device
+        importManifestButton.setOnClickListener(v -> startActivity(new Intent(requireContext(), HookManifestImportActivity.class)));
+
+        // Import user block rules; a running Instagram reloads them on its own
+        importBlocklistButton.setOnClickListener(v -> startActivity(new Intent(requireContext(), BlocklistImportActivity.class)));
+
         // Setup Contributors and Special Thanks
         setupContributorsAndSpecialThanks(view);
 
         return view;
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        requireContext().registerReceiver(instagramUpdateReceiver, filter);
+
+        preScanInstagram();
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        requireContext().unregisterReceiver(instagramUpdateReceiver);
+    }
+
+    // Resolve hooks for the installed Instagram now, so its next start skips the DexKit scan
+    private void preScanInstagram() {
+        PreScanner.scanIfNeeded(requireContext(), () -> {
+            if (isAdded()) {
+                checkInstagramStatus();
+            }
+        });
+        checkInstagramStatus();
+    }
+
     @SuppressLint("SetTextI18n")
     private void checkInstagramStatus() {
         String instagramPackage = CommonUtils.IG_PACKAGE_NAME; // IG package name
@@ -95,7 +146,9 @@ public class HomeFragment extends Fragment {
 
             String installedText = getString(R.string.installed_instagram_version);
             String versionText = getString(R.string.instagram_version) + ": " + versionName;
-            String fullText = installedText + "\n" + versionText;
+            String hooksText = getString(R.string.hooks_status) + ": " + getString(PreScanner.isScanning() ? R.string.hooks_scanning
+                    : PreScanner.hasFreshManifest(requireContext()) ? R.string.hooks_ready : R.string.hooks_not_resolved);
+            String fullText = installedText + "\n" + versionText + "\n" + hooksText;
 
             SpannableString spannableString = new SpannableString(fullText);
 
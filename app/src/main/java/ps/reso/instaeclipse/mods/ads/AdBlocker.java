@@ -1,44 +1,61 @@
 package ps.reso.instaeclipse.mods.ads;
 
 import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class AdBlocker {
 
-    public void disableSponsoredContent(DexKitBridge bridge, ClassLoader classLoader) {
+    public static final String CACHE_KEY = "AdBlocker";
+
+    public List<String> findSponsoredMethods(DexKitBridge bridge) {
+        List<MethodData> methods = StringAnchors.methods(bridge, StringAnchors.SPONSORED_INSERT_ITEM);
+
+        List<String> descriptors = new ArrayList<>();
+        for (MethodData method : methods) {
+            String returnType = String.valueOf(method.getReturnType());
+            if (!returnType.contains("boolean")) continue;
+            descriptors.add(method.getDescriptor());
+        }
+        return descriptors;
+    }
+
+    public List<String> resolveSponsoredMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findSponsoredMethods);
+    }
+
+    public void disableSponsoredContent(ClassLoader classLoader) {
         try {
-            List<MethodData> methods = bridge.findMethod(
-                    FindMethod.create().matcher(
-                            MethodMatcher.create().usingStrings("SponsoredContentController.insertItem")
-                    )
-            );
+            List<String> methods = resolveSponsoredMethods();
 
             if (methods.isEmpty()) {
                 XposedBridge.log("(InstaEclipse | AdBlocker): ❌ No methods found referencing 'SponsoredContentController.insertItem'");
                 return;
             }
 
-            for (MethodData method : methods) {
-                String returnType = String.valueOf(method.getReturnType());
-                if (!returnType.contains("boolean")) continue;
-
+            for (String descriptor : methods) {
+                DexMethod method = new DexMethod(descriptor);
                 try {
-                    Method targetMethod = method.getMethodInstance(classLoader);
+                    Method targetMethod = StartupTracer.getMethodInstance("AdBlocker", method, classLoader);
 
-                    XposedBridge.hookMethod(targetMethod, new XC_MethodHook() {
+                    StartupTracer.hookMethod("AdBlocker", targetMethod, new XC_MethodHook() {
                         @Override
                         protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                            if (FeatureFlags.isAdBlockEnabled) {
+                            if (FeatureFlags.snapshot().has(FlagSnapshot.AD_BLOCK)) {
                                 param.setResult(false); // prevent ad
                             }
                         }
@@ -46,7 +63,7 @@ public class AdBlocker {
 
                     XposedBridge.log("(InstaEclipse | AdBlocker): ✅ Hooked (dynamic check): " +
                             method.getClassName() + "." + method.getName());
-                    FeatureStatusTracker.setHooked("AdBlocker");
+                    FeatureStatusTracker.setHooked(Feature.AD_BLOCKER);
                     return; // Stop after first successful hook
 
                 } catch (Throwable hookEx) {
@@ -4,19 +4,21 @@ import android.content.ClipData;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedHelpers;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
 
 public class TrackingLinkDisable {
     public void disableTrackingLinks(ClassLoader classLoader) throws Throwable {
-        FeatureStatusTracker.setHooked("DisableTrackingLinks");
+        FeatureStatusTracker.setHooked(Feature.DISABLE_TRACKING_LINKS);
         Class<?> clipboardManagerClass = XposedHelpers.findClass("android.content.ClipboardManager", classLoader);
         XposedHelpers.findAndHookMethod(clipboardManagerClass, "setPrimaryClip",
                 Class.forName("android.content.ClipData"), new XC_MethodHook() {
                     @Override
                     protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
 
-                        if (FeatureFlags.disableTrackingLinks) {
+                        if (FeatureFlags.snapshot().has(FlagSnapshot.DISABLE_TRACKING_LINKS)) {
                             ClipData clipData = (ClipData) param.args[0];
                             if (clipData == null || clipData.getItemCount() == 0 || clipData.getItemAt(0) == null || clipData.getItemAt(0).getText() == null) {
                                 return;
@@ -1,134 +1,139 @@
 package ps.reso.instaeclipse.mods.devops;
 
 import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindClass;
 import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.ClassMatcher;
 import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.ClassData;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class DevOptionsEnable {
 
-    public void handleDevOptions(DexKitBridge bridge) {
+    public static final String CACHE_KEY = "DevOptions";
+
+    public List<String> resolveDevOptionsMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findDevOptionsMethods);
+    }
+
+    public void handleDevOptions() {
         try {
-            findAndHookDynamicMethod(bridge);
-        } catch (Exception e) {
+            List<String> methods = resolveDevOptionsMethods();
+
+            if (methods.isEmpty()) {
+                XposedBridge.log("(InstaEclipse | DevOptionsEnable): ❌ No boolean methods found behind 'is_employee'");
+                return;
+            }
+
+            for (String descriptor : methods) {
+                hookBooleanMethod(new DexMethod(descriptor));
+            }
+        } catch (Throwable e) {
             XposedBridge.log("(InstaEclipse | DevOptionsEnable): ❌ Error handling Dev Options: " + e.getMessage());
         }
     }
 
-    private void findAndHookDynamicMethod(DexKitBridge bridge) {
-        try {
-            // Step 1: Find classes referencing "is_employee"
-            List<ClassData> classes = bridge.findClass(FindClass.create()
-                    .matcher(ClassMatcher.create().usingStrings("is_employee"))
-            );
-
-            if (classes.isEmpty()) return;
+    public List<String> findDevOptionsMethods(DexKitBridge bridge) {
+        Set<String> descriptors = new LinkedHashSet<>();
 
-            for (ClassData classData : classes) {
-                String className = classData.getName();
-                if (!className.startsWith("X.")) continue;
+        // Step 1: Find classes referencing "is_employee"
+        List<ClassData> classes = StringAnchors.classes(bridge, StringAnchors.IS_EMPLOYEE);
+        List<MethodData> employeeMethods = StringAnchors.methods(bridge, StringAnchors.IS_EMPLOYEE);
 
-                // Step 2: Find methods referencing "is_employee" within the class
-                List<MethodData> methods = bridge.findMethod(FindMethod.create()
-                        .matcher(MethodMatcher.create()
-                                .declaredClass(className)
-                                .usingStrings("is_employee"))
-                );
+        for (ClassData classData : classes) {
+            String className = classData.getName();
+            if (!className.startsWith("X.")) continue;
 
-                if (methods.isEmpty()) continue;
+            // Step 2: Methods referencing "is_employee" within the class
+            for (MethodData method : employeeMethods) {
+                if (!className.equals(method.getClassName())) continue;
 
-                for (MethodData method : methods) {
-                    inspectInvokedMethods(bridge, method);
+                String targetClass = inspectInvokedMethods(method);
+                if (targetClass != null) {
+                    descriptors.addAll(findBooleanMethodsInClass(bridge, targetClass));
                 }
             }
-        } catch (Exception e) {
-            XposedBridge.log("(InstaEclipse | DevOptionsEnable): ❌ Error during discovery: " + e.getMessage());
         }
+        return new ArrayList<>(descriptors);
     }
 
-    private void inspectInvokedMethods(DexKitBridge bridge, MethodData method) {
-        try {
-            List<MethodData> invokedMethods = method.getInvokes();
-            if (invokedMethods.isEmpty()) return;
+    private String inspectInvokedMethods(MethodData method) {
+        for (MethodData invokedMethod : method.getInvokes()) {
+            String returnType = String.valueOf(invokedMethod.getReturnType());
 
-            for (MethodData invokedMethod : invokedMethods) {
-                String returnType = String.valueOf(invokedMethod.getReturnType());
+            if (!returnType.contains("boolean")) continue;
 
-                if (!returnType.contains("boolean")) continue;
+            List<String> paramTypes = new ArrayList<>();
+            for (Object param : invokedMethod.getParamTypes()) {
+                paramTypes.add(String.valueOf(param));
+            }
 
-                List<String> paramTypes = new java.util.ArrayList<>();
-                for (Object param : invokedMethod.getParamTypes()) {
-                    paramTypes.add(String.valueOf(param));
-                }
+            if (paramTypes.size() == 1 &&
+                    paramTypes.get(0).contains("com.instagram.common.session.UserSession")) {
+                return invokedMethod.getClassName();
+            }
+        }
+        return null;
+    }
 
-                if (paramTypes.size() == 1 &&
-                        paramTypes.get(0).contains("com.instagram.common.session.UserSession")) {
+    private List<String> findBooleanMethodsInClass(DexKitBridge bridge, String className) {
+        List<MethodData> methods = bridge.findMethod(FindMethod.create()
+                .matcher(MethodMatcher.create()
+                        .declaredClass(className))
+        );
+
+        List<String> descriptors = new ArrayList<>();
+        for (MethodData method : methods) {
+            String returnType = String.valueOf(method.getReturnType());
+            List<String> paramTypes = new ArrayList<>();
+            for (Object param : method.getParamTypes()) {
+                paramTypes.add(String.valueOf(param));
+            }
 
-                    String targetClass = invokedMethod.getClassName();
-                    XposedBridge.log("(InstaEclipse | DevOptionsEnable): 📦 Hooking boolean methods in: " + targetClass);
-                    hookAllBooleanMethodsInClass(bridge, targetClass);
-                    return;
-                }
+            if (returnType.contains("boolean") &&
+                    paramTypes.size() == 1 &&
+                    paramTypes.get(0).contains("com.instagram.common.session.UserSession")) {
+                descriptors.add(method.getDescriptor());
             }
-        } catch (Exception e) {
-            XposedBridge.log("(InstaEclipse | DevOptionsEnable): ❌ Error inspecting invoked methods: " + e.getMessage());
         }
+        return descriptors;
     }
 
-    private void hookAllBooleanMethodsInClass(DexKitBridge bridge, String className) {
+    private void hookBooleanMethod(DexMethod method) {
         try {
-            List<MethodData> methods = bridge.findMethod(FindMethod.create()
-                    .matcher(MethodMatcher.create()
-                            .declaredClass(className))
-            );
-
-            for (MethodData method : methods) {
-                String returnType = String.valueOf(method.getReturnType());
-                List<String> paramTypes = new java.util.ArrayList<>();
-                for (Object param : method.getParamTypes()) {
-                    paramTypes.add(String.valueOf(param));
-                }
-
-                if (returnType.contains("boolean") &&
-                        paramTypes.size() == 1 &&
-                        paramTypes.get(0).contains("com.instagram.common.session.UserSession")) {
-
-                    try {
-                        Method targetMethod = method.getMethodInstance(Module.hostClassLoader);
-
-                        XposedBridge.hookMethod(targetMethod, new XC_MethodHook() {
-                            @Override
-                            protected void beforeHookedMethod(MethodHookParam param) {
-                                if (FeatureFlags.isDevEnabled) {
-                                    param.setResult(true);
-                                    FeatureStatusTracker.setHooked("DevOptions");
-                                }
-                            }
-                        });
-
-                        XposedBridge.log("(InstaEclipse | DevOptionsEnable): ✅ Hooked: " +
-                                method.getClassName() + "." + method.getName());
-
-                    } catch (Throwable e) {
-                        XposedBridge.log("(InstaEclipse | DevOptionsEnable): ❌ Failed to hook " + method.getName() + ": " + e.getMessage());
+            Method targetMethod = StartupTracer.getMethodInstance("DevOptions", method, Module.hostClassLoader);
+
+            StartupTracer.hookMethod("DevOptions", targetMethod, new XC_MethodHook() {
+                @Override
+                protected void beforeHookedMethod(MethodHookParam param) {
+                    if (FeatureFlags.snapshot().has(FlagSnapshot.DEV_ENABLED)) {
+                        param.setResult(true);
+                        FeatureStatusTracker.setHooked(Feature.DEV_OPTIONS);
                     }
                 }
-            }
+            });
+
+            XposedBridge.log("(InstaEclipse | DevOptionsEnable): ✅ Hooked: " +
+                    method.getClassName() + "." + method.getName());
 
-        } catch (Exception e) {
-            XposedBridge.log("(InstaEclipse | DevOptionsEnable): ❌ Error while hooking class: " + className + " → " + e.getMessage());
+        } catch (Throwable e) {
+            XposedBridge.log("(InstaEclipse | DevOptionsEnable): ❌ Failed to hook " + method.getName() + ": " + e.getMessage());
         }
     }
 }
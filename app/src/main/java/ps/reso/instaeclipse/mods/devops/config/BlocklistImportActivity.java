@@ -0,0 +1,77 @@
+package ps.reso.instaeclipse.mods.devops.config;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.widget.Toast;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import ps.reso.instaeclipse.mods.network.UriRule;
+import ps.reso.instaeclipse.mods.network.UserBlocklist;
+import ps.reso.instaeclipse.utils.core.ModulePrefs;
+
+/**
+ * Picks a user rules file and stores it where the hooked app can read it. A running Instagram
+ * picks up the new rules within a few seconds, see {@link UserBlocklist}.
+ */
+public class BlocklistImportActivity extends Activity {
+
+    private static final int PICK_BLOCKLIST_FILE = 4322;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        openTextPicker();
+    }
+
+    private void openTextPicker() {
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("text/*");
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        startActivityForResult(Intent.createChooser(intent, "Select Blocklist"), PICK_BLOCKLIST_FILE);
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        if (requestCode == PICK_BLOCKLIST_FILE) {
+            if (resultCode == RESULT_OK && data != null && data.getData() != null) {
+                Uri uri = data.getData();
+                try (InputStream inputStream = getContentResolver().openInputStream(uri)) {
+                    String text = readStream(inputStream);
+                    List<String> errors = new ArrayList<>();
+                    List<UriRule> rules = UserBlocklist.parse(text, errors);
+
+                    boolean saved = ModulePrefs.open(this, UserBlocklist.PREFS_NAME).edit()
+                            .putString(UserBlocklist.KEY_RULES, text)
+                            .commit();
+                    if (!saved) throw new IllegalStateException("Could not save blocklist");
+
+                    String message = "✅ Imported " + rules.size() + " rules";
+                    if (!errors.isEmpty()) {
+                        message += " (" + errors.size() + " lines skipped, first: " + errors.get(0) + ")";
+                    }
+                    Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+                } catch (SecurityException e) {
+                    Toast.makeText(this, "❌ Enable the module in LSPosed before importing", Toast.LENGTH_LONG).show();
+                } catch (Exception e) {
+                    Toast.makeText(this, "❌ Failed to import blocklist: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                }
+            } else {
+                Toast.makeText(this, "Cancelled or no file selected", Toast.LENGTH_SHORT).show();
+            }
+        }
+        finish();
+    }
+
+    private String readStream(InputStream inputStream) {
+        @SuppressLint({"NewApi", "LocalSuppress"}) Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8).useDelimiter("\\A");
+        return scanner.hasNext() ? scanner.next() : "";
+    }
+}
@@ -0,0 +1,68 @@
+package ps.reso.instaeclipse.mods.devops.config;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.widget.Toast;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import ps.reso.instaeclipse.utils.core.ModulePrefs;
+import ps.reso.instaeclipse.utils.discovery.HookManifest;
+
+/**
+ * Picks a hook manifest exported on another device and stores it where the hooked app can
+ * read it. It is used on the next Instagram start if the package and versionCode match.
+ */
+public class HookManifestImportActivity extends Activity {
+
+    private static final int PICK_MANIFEST_FILE = 4321;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        openJsonPicker();
+    }
+
+    private void openJsonPicker() {
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("application/json");
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        startActivityForResult(Intent.createChooser(intent, "Select Hook Manifest"), PICK_MANIFEST_FILE);
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        if (requestCode == PICK_MANIFEST_FILE) {
+            if (resultCode == RESULT_OK && data != null && data.getData() != null) {
+                Uri uri = data.getData();
+                try (InputStream inputStream = getContentResolver().openInputStream(uri)) {
+                    HookManifest manifest = HookManifest.fromJson(readStream(inputStream).trim());
+
+                    boolean saved = ModulePrefs.open(this, HookManifest.PREFS_NAME).edit()
+                            .putString(manifest.prefKey(), manifest.toJson())
+                            .commit();
+                    if (!saved) throw new IllegalStateException("Could not save manifest");
+
+                    Toast.makeText(this, "✅ Imported hooks for " + manifest.packageName + " " + manifest.versionName + " (" + manifest.entries.size() + " features)", Toast.LENGTH_LONG).show();
+                } catch (SecurityException e) {
+                    Toast.makeText(this, "❌ Enable the module in LSPosed before importing", Toast.LENGTH_LONG).show();
+                } catch (Exception e) {
+                    Toast.makeText(this, "❌ Failed to import manifest: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                }
+            } else {
+                Toast.makeText(this, "Cancelled or no file selected", Toast.LENGTH_SHORT).show();
+            }
+        }
+        finish();
+    }
+
+    private String readStream(InputStream inputStream) {
+        @SuppressLint({"NewApi", "LocalSuppress"}) Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8).useDelimiter("\\A");
+        return scanner.hasNext() ? scanner.next() : "";
+    }
+}
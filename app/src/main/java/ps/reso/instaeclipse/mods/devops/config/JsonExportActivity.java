@@ -15,6 +15,9 @@ import java.nio.charset.StandardCharsets;
 
 public class JsonExportActivity extends Activity {
 
+    // Suggested file name; defaults to the dev config export
+    public static final String EXTRA_FILE_NAME = "file_name";
+
     private static final int SAVE_JSON_FILE = 5678;
 
     @Override
@@ -27,7 +30,8 @@ public class JsonExportActivity extends Activity {
         Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
         intent.addCategory(Intent.CATEGORY_OPENABLE);
         intent.setType("application/json");
-        intent.putExtra(Intent.EXTRA_TITLE, "mc_overrides_exported.json");
+        String fileName = getIntent().getStringExtra(EXTRA_FILE_NAME);
+        intent.putExtra(Intent.EXTRA_TITLE, fileName != null ? fileName : "mc_overrides_exported.json");
         startActivityForResult(intent, SAVE_JSON_FILE);
     }
 
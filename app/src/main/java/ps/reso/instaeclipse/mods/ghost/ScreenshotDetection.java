@@ -1,73 +1,87 @@
 package ps.reso.instaeclipse.mods.ghost;
 
 import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindClass;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.ClassMatcher;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.ClassData;
 import org.luckypray.dexkit.result.ClassDataList;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class ScreenshotDetection {
 
-    public void handleScreenshotBlock(DexKitBridge bridge) {
+    public static final String CACHE_KEY = "GhostScreenshot";
+
+    public List<String> findScreenshotMethods(DexKitBridge bridge) {
+        // Step 1: Find class referencing "ScreenshotNotificationManager"
+        List<ClassData> classes = StringAnchors.classes(bridge, StringAnchors.SCREENSHOT_NOTIFICATION_MANAGER);
+
+        List<String> descriptors = new ArrayList<>();
+        for (ClassData classData : classes) {
+            // Step 2: Take all methods declared in that class
+            List<MethodData> methods = classData.getMethods();
+
+            for (MethodData method : methods) {
+                ClassDataList paramTypes = method.getParamTypes();
+                String returnType = String.valueOf(method.getReturnType());
+
+                // Match: void method(long)
+                if (returnType.contains("void") &&
+                        paramTypes.size() == 1 &&
+                        String.valueOf(paramTypes.get(0)).contains("long")) {
+                    descriptors.add(method.getDescriptor());
+                }
+            }
+        }
+        return descriptors;
+    }
+
+    public List<String> resolveScreenshotMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findScreenshotMethods);
+    }
+
+    public void handleScreenshotBlock() {
         try {
-            // Step 1: Find class referencing "ScreenshotNotificationManager"
-            List<ClassData> classes = bridge.findClass(FindClass.create()
-                    .matcher(ClassMatcher.create().usingStrings("ScreenshotNotificationManager")));
+            List<String> methods = resolveScreenshotMethods();
 
-            if (classes.isEmpty()) {
+            if (methods.isEmpty()) {
                 XposedBridge.log("(InstaEclipse | ScreenshotBlock): ❌ No class found containing 'ScreenshotNotificationManager'");
                 return;
             }
 
-            for (ClassData classData : classes) {
-                String className = classData.getName();
-
-                // Step 2: Find all methods in that class
-                List<MethodData> methods = bridge.findMethod(FindMethod.create()
-                        .matcher(MethodMatcher.create().declaredClass(className)));
-
-                for (MethodData method : methods) {
-                    ClassDataList paramTypes = method.getParamTypes();
-                    String returnType = String.valueOf(method.getReturnType());
-
-                    // Match: void method(long)
-                    if (returnType.contains("void") &&
-                            paramTypes.size() == 1 &&
-                            String.valueOf(paramTypes.get(0)).contains("long")) {
-
-                        try {
-                            Method targetMethod = method.getMethodInstance(Module.hostClassLoader);
-
-                            XposedBridge.hookMethod(targetMethod, new XC_MethodHook() {
-                                @Override
-                                protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                                    if (FeatureFlags.isGhostScreenshot) {
-                                        param.setResult(null); // Block logic
-                                    }
-                                }
-                            });
-
-                            XposedBridge.log("(InstaEclipse | ScreenshotBlock): ✅ Hooked (dynamic check): " +
-                                    method.getClassName() + "." + method.getName());
-                            FeatureStatusTracker.setHooked("GhostScreenshot");
-                            return;
-
-                        } catch (Throwable e) {
-                            XposedBridge.log("(InstaEclipse | ScreenshotBlock): ❌ Hook error: " + e.getMessage());
+            for (String descriptor : methods) {
+                try {
+                    Method targetMethod = StartupTracer.getMethodInstance("GhostScreenshot", new DexMethod(descriptor), Module.hostClassLoader);
+
+                    StartupTracer.hookMethod("GhostScreenshot", targetMethod, new XC_MethodHook() {
+                        @Override
+                        protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                            if (FeatureFlags.snapshot().has(FlagSnapshot.GHOST_SCREENSHOT)) {
+                                param.setResult(null); // Block logic
+                            }
                         }
-                    }
+                    });
+
+                    XposedBridge.log("(InstaEclipse | ScreenshotBlock): ✅ Hooked (dynamic check): " +
+                            targetMethod.getDeclaringClass().getName() + "." + targetMethod.getName());
+                    FeatureStatusTracker.setHooked(Feature.GHOST_SCREENSHOT);
+                    return;
+
+                } catch (Throwable e) {
+                    XposedBridge.log("(InstaEclipse | ScreenshotBlock): ❌ Hook error: " + e.getMessage());
                 }
             }
 
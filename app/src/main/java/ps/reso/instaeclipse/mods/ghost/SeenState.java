@@ -1,78 +1,98 @@
 package ps.reso.instaeclipse.mods.ghost;
 
 import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.ClassDataList;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 /**
  * Handles Ghost Mode for Direct Messages (DM) in Instagram.
  */
 public class SeenState {
-    public void handleSeenBlock(DexKitBridge bridge) {
+
+    public static final String CACHE_KEY = "GhostSeen";
+
+    public List<String> findSeenMethods(DexKitBridge bridge) {
+        // Step 1: Find all methods containing "mark_thread_seen-"
+        List<MethodData> methods = StringAnchors.methods(bridge, StringAnchors.MARK_THREAD_SEEN);
+
+        List<String> descriptors = new ArrayList<>();
+        for (MethodData method : methods) {
+            int modifiers = method.getModifiers();
+            String returnType = String.valueOf(method.getReturnType());
+            ClassDataList paramTypes = method.getParamTypes();
+
+            // Step 2: Match: static final void method(?, ?, ?, ...)
+            if (Modifier.isStatic(modifiers)
+                    && Modifier.isFinal(modifiers)
+                    && returnType.contains("void")
+                    && paramTypes.size() >= 3) {
+                descriptors.add(method.getDescriptor());
+            }
+        }
+        return descriptors;
+    }
+
+    public List<String> resolveSeenMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findSeenMethods);
+    }
+
+    public void handleSeenBlock() {
         try {
-            // Step 1: Find all methods containing "mark_thread_seen-"
-            List<MethodData> methods = bridge.findMethod(FindMethod.create()
-                    .matcher(MethodMatcher.create().usingStrings("mark_thread_seen-")));
+            List<String> methods = resolveSeenMethods();
 
             if (methods.isEmpty()) {
                 XposedBridge.log("(InstaEclipse | GhostModeSeen): ❌ No methods found using 'mark_thread_seen-'");
                 return;
             }
 
-            for (MethodData method : methods) {
+            for (String descriptor : methods) {
                 Method reflectMethod;
                 try {
-                    reflectMethod = method.getMethodInstance(Module.hostClassLoader);
+                    reflectMethod = StartupTracer.getMethodInstance("GhostSeen", new DexMethod(descriptor), Module.hostClassLoader);
                 } catch (Throwable e) {
                     continue; // Skip methods that can't be resolved
                 }
 
-                int modifiers = reflectMethod.getModifiers();
-                String returnType = String.valueOf(method.getReturnType());
-                ClassDataList paramTypes = method.getParamTypes();
-
-                // Step 2: Match: static final void method(?, ?, ?, ...)
-                if (Modifier.isStatic(modifiers)
-                        && Modifier.isFinal(modifiers)
-                        && returnType.contains("void")
-                        && paramTypes.size() >= 3) {
-
-                    try {
-                        XposedBridge.hookMethod(reflectMethod, new XC_MethodHook() {
-                            @Override
-                            protected void beforeHookedMethod(MethodHookParam param) {
-                                /*
-                                Debug purposes
-                                XposedBridge.log("(InstaEclipse | GhostModeSeen): 🚫 Blocked seen ping from: " +
-                                        method.getClassName() + "." + method.getName());
-                                */
-                                // ✅ Only block if GhostSeen is active
-                                if (FeatureFlags.isGhostSeen) {
-                                    param.setResult(null);
-                                }
+                try {
+                    StartupTracer.hookMethod("GhostSeen", reflectMethod, new XC_MethodHook() {
+                        @Override
+                        protected void beforeHookedMethod(MethodHookParam param) {
+                            /*
+                            Debug purposes
+                            XposedBridge.log("(InstaEclipse | GhostModeSeen): 🚫 Blocked seen ping from: " +
+                                    reflectMethod.getDeclaringClass().getName() + "." + reflectMethod.getName());
+                            */
+                            // ✅ Only block if GhostSeen is active
+                            if (FeatureFlags.snapshot().has(FlagSnapshot.GHOST_SEEN)) {
+                                param.setResult(null);
                             }
-                        });
+                        }
+                    });
 
-                        XposedBridge.log("(InstaEclipse | GhostModeSeen): ✅ Hooked: " +
-                                method.getClassName() + "." + method.getName());
-                        FeatureStatusTracker.setHooked("GhostSeen");
-                        return;
+                    XposedBridge.log("(InstaEclipse | GhostModeSeen): ✅ Hooked: " +
+                            reflectMethod.getDeclaringClass().getName() + "." + reflectMethod.getName());
+                    FeatureStatusTracker.setHooked(Feature.GHOST_SEEN);
+                    return;
 
-                    } catch (Throwable e) {
-                        XposedBridge.log("(InstaEclipse | GhostModeSeen): ❌ Hook error: " + e.getMessage());
-                    }
+                } catch (Throwable e) {
+                    XposedBridge.log("(InstaEclipse | GhostModeSeen): ❌ Hook error: " + e.getMessage());
                 }
             }
 
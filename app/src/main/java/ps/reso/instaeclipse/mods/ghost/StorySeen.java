@@ -1,70 +1,88 @@
 package ps.reso.instaeclipse.mods.ghost;
 
 import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.ClassDataList;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class StorySeen {
 
-    public void handleStorySeenBlock(DexKitBridge bridge) {
+    public static final String CACHE_KEY = "GhostStories";
+
+    public List<String> findStorySeenMethods(DexKitBridge bridge) {
+        // Step 1: Find methods containing the string "media/seen/"
+        List<MethodData> methods = StringAnchors.methods(bridge, StringAnchors.MEDIA_SEEN);
+
+        List<String> descriptors = new ArrayList<>();
+        for (MethodData method : methods) {
+            ClassDataList paramTypes = method.getParamTypes();
+            String returnType = String.valueOf(method.getReturnType());
+            int modifiers = method.getModifiers();
+
+            // Match: final void method with no params
+            if (Modifier.isFinal(modifiers) &&
+                    returnType.contains("void") &&
+                    paramTypes.size() == 0) {
+                descriptors.add(method.getDescriptor());
+            }
+        }
+        return descriptors;
+    }
+
+    public List<String> resolveStorySeenMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findStorySeenMethods);
+    }
+
+    public void handleStorySeenBlock() {
         try {
-            // Step 1: Find methods containing the string "media/seen/"
-            List<MethodData> methods = bridge.findMethod(FindMethod.create()
-                    .matcher(MethodMatcher.create().usingStrings("media/seen/")));
+            List<String> methods = resolveStorySeenMethods();
 
             if (methods.isEmpty()) {
                 XposedBridge.log("(InstaEclipse | StoryBlock): ❌ No methods found containing 'media/seen/'");
                 return;
             }
 
-            for (MethodData method : methods) {
-                ClassDataList paramTypes = method.getParamTypes();
-                String returnType = String.valueOf(method.getReturnType());
-
+            for (String descriptor : methods) {
                 Method reflectMethod;
                 try {
-                    reflectMethod = method.getMethodInstance(Module.hostClassLoader);
+                    reflectMethod = StartupTracer.getMethodInstance("GhostStories", new DexMethod(descriptor), Module.hostClassLoader);
                 } catch (Throwable e) {
                     continue; // Skip if cannot reflect
                 }
 
-                int modifiers = reflectMethod.getModifiers();
-
-                // Match: final void method with no params
-                if (Modifier.isFinal(modifiers) &&
-                        returnType.contains("void") &&
-                        paramTypes.size() == 0) {
-
-                    try {
-                        XposedBridge.hookMethod(reflectMethod, new XC_MethodHook() {
-                            @Override
-                            protected void beforeHookedMethod(MethodHookParam param) {
-                                if (FeatureFlags.isGhostStory) {
-                                    param.setResult(null); // Block if GhostStory is enabled
-                                }
+                try {
+                    StartupTracer.hookMethod("GhostStories", reflectMethod, new XC_MethodHook() {
+                        @Override
+                        protected void beforeHookedMethod(MethodHookParam param) {
+                            if (FeatureFlags.snapshot().has(FlagSnapshot.GHOST_STORY)) {
+                                param.setResult(null); // Block if GhostStory is enabled
                             }
-                        });
+                        }
+                    });
 
-                        XposedBridge.log("(InstaEclipse | StoryBlock): ✅ Hooked (dynamic check): " +
-                                method.getClassName() + "." + method.getName());
-                        FeatureStatusTracker.setHooked("GhostStories");
-                        return;
+                    XposedBridge.log("(InstaEclipse | StoryBlock): ✅ Hooked (dynamic check): " +
+                            reflectMethod.getDeclaringClass().getName() + "." + reflectMethod.getName());
+                    FeatureStatusTracker.setHooked(Feature.GHOST_STORIES);
+                    return;
 
-                    } catch (Throwable e) {
-                        XposedBridge.log("(InstaEclipse | StoryBlock): ❌ Hook error: " + e.getMessage());
-                    }
+                } catch (Throwable e) {
+                    XposedBridge.log("(InstaEclipse | StoryBlock): ❌ Hook error: " + e.getMessage());
                 }
             }
 
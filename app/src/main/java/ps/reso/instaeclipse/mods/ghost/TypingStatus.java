@@ -1,75 +1,93 @@
 package ps.reso.instaeclipse.mods.ghost;
 
 import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.ClassDataList;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class TypingStatus {
 
-    public void handleTypingBlock(DexKitBridge bridge) {
+    public static final String CACHE_KEY = "GhostTyping";
+
+    public List<String> findTypingMethods(DexKitBridge bridge) {
+        // Step 1: Find methods containing the string "is_typing_indicator_enabled"
+        List<MethodData> methods = StringAnchors.methods(bridge, StringAnchors.TYPING_INDICATOR);
+
+        List<String> descriptors = new ArrayList<>();
+        for (MethodData method : methods) {
+            ClassDataList paramTypes = method.getParamTypes();
+            String returnType = String.valueOf(method.getReturnType());
+            int modifiers = method.getModifiers();
+
+            // Step 2: Match: static final void method(ClassType, boolean)
+            if (Modifier.isStatic(modifiers) &&
+                    Modifier.isFinal(modifiers) &&
+                    returnType.contains("void") &&
+                    paramTypes.size() == 2 &&
+                    String.valueOf(paramTypes.get(1)).contains("boolean")) {
+                descriptors.add(method.getDescriptor());
+            }
+        }
+        return descriptors;
+    }
+
+    public List<String> resolveTypingMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findTypingMethods);
+    }
+
+    public void handleTypingBlock() {
         try {
-            // Step 1: Find methods containing the string "is_typing_indicator_enabled"
-            List<MethodData> methods = bridge.findMethod(FindMethod.create()
-                    .matcher(MethodMatcher.create().usingStrings("is_typing_indicator_enabled")));
+            List<String> methods = resolveTypingMethods();
 
             if (methods.isEmpty()) {
                 XposedBridge.log("(InstaEclipse | TypingBlock): ❌ No methods found containing 'is_typing_indicator_enabled'");
                 return;
             }
 
-            for (MethodData method : methods) {
-                ClassDataList paramTypes = method.getParamTypes();
-                String returnType = String.valueOf(method.getReturnType());
-
+            for (String descriptor : methods) {
                 Method reflectMethod;
                 try {
-                    reflectMethod = method.getMethodInstance(Module.hostClassLoader);
+                    reflectMethod = StartupTracer.getMethodInstance("GhostTyping", new DexMethod(descriptor), Module.hostClassLoader);
                 } catch (Throwable e) {
                     // Skip method if it can't be resolved
                     continue;
                 }
 
-                int modifiers = reflectMethod.getModifiers();
-
-                // Step 2: Match: static final void method(ClassType, boolean)
-                if (Modifier.isStatic(modifiers) &&
-                        Modifier.isFinal(modifiers) &&
-                        returnType.contains("void") &&
-                        paramTypes.size() == 2 &&
-                        String.valueOf(paramTypes.get(1)).contains("boolean")) {
-
-                    try {
-                        // Step 3: Hook method dynamically
-                        XposedBridge.hookMethod(reflectMethod, new XC_MethodHook() {
-                            @Override
-                            protected void beforeHookedMethod(MethodHookParam param) {
-                                if (FeatureFlags.isGhostTyping) {
-                                    // If ghost typing is enabled, block typing ping
-                                    param.setResult(null);
-                                }
+                try {
+                    // Step 3: Hook method dynamically
+                    StartupTracer.hookMethod("GhostTyping", reflectMethod, new XC_MethodHook() {
+                        @Override
+                        protected void beforeHookedMethod(MethodHookParam param) {
+                            if (FeatureFlags.snapshot().has(FlagSnapshot.GHOST_TYPING)) {
+                                // If ghost typing is enabled, block typing ping
+                                param.setResult(null);
                             }
-                        });
+                        }
+                    });
 
-                        XposedBridge.log("(InstaEclipse | TypingBlock): ✅ Hooked (dynamic check): " +
-                                method.getClassName() + "." + method.getName());
-                        FeatureStatusTracker.setHooked("GhostTyping");
-                        return;
+                    XposedBridge.log("(InstaEclipse | TypingBlock): ✅ Hooked (dynamic check): " +
+                            reflectMethod.getDeclaringClass().getName() + "." + reflectMethod.getName());
+                    FeatureStatusTracker.setHooked(Feature.GHOST_TYPING);
+                    return;
 
-                    } catch (Throwable e) {
-                        XposedBridge.log("(InstaEclipse | TypingBlock): ❌ Hook error: " + e.getMessage());
-                    }
+                } catch (Throwable e) {
+                    XposedBridge.log("(InstaEclipse | TypingBlock): ❌ Hook error: " + e.getMessage());
                 }
             }
 
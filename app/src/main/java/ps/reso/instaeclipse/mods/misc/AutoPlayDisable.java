@@ -1,68 +1,79 @@
 package ps.reso.instaeclipse.mods.misc;
 
 import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class AutoPlayDisable {
 
-    public void handleAutoPlayDisable(DexKitBridge bridge) {
+    public static final String CACHE_KEY = "AutoPlayDisable";
+
+    public void handleAutoPlayDisable() {
         try {
-            findAndHookDynamicMethod(bridge);
+            findAndHookDynamicMethod();
         } catch (Exception e) {
             XposedBridge.log("(InstaEclipse | AutoPlayDisable): Error: " + e.getMessage());
         }
     }
 
-    private void findAndHookDynamicMethod(DexKitBridge bridge) {
-        try {
-            // Step 1: Find methods referencing "ig_disable_video_autoplay"
-            List<MethodData> methods = bridge.findMethod(FindMethod.create()
-                    .matcher(MethodMatcher.create()
-                            .usingStrings("ig_disable_video_autoplay")
-                    )
-            );
+    public List<String> findAutoPlayMethods(DexKitBridge bridge) {
+        // Step 1: Find methods referencing "ig_disable_video_autoplay"
+        List<MethodData> methods = StringAnchors.methods(bridge, StringAnchors.DISABLE_VIDEO_AUTOPLAY);
 
-            if (methods.isEmpty()) {
-                XposedBridge.log("(InstaEclipse | AutoPlayDisable): ❌ No matching methods found.");
-                return;
+        // Step 2: Find the correct method: boolean return type, 1 parameter
+        List<String> descriptors = new ArrayList<>();
+        for (MethodData method : methods) {
+            boolean returnTypeMatch = String.valueOf(method.getReturnType()).contains("boolean");
+            boolean paramTypesMatch = method.getParamTypes().size() == 1;
+
+            if (returnTypeMatch && paramTypesMatch) {
+                descriptors.add(method.getDescriptor());
             }
+        }
+        return descriptors;
+    }
 
-            // Step 2: Find the correct method: boolean return type, 1 parameter
-            for (MethodData method : methods) {
-                boolean returnTypeMatch = String.valueOf(method.getReturnType()).contains("boolean");
-                boolean paramTypesMatch = method.getParamTypes().size() == 1;
+    public List<String> resolveAutoPlayMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findAutoPlayMethods);
+    }
 
-                if (returnTypeMatch && paramTypesMatch) {
-                    hookMethod(method);
-                    return;
-                }
+    private void findAndHookDynamicMethod() {
+        try {
+            List<String> methods = resolveAutoPlayMethods();
+
+            if (methods.isEmpty()) {
+                XposedBridge.log("(InstaEclipse | AutoPlayDisable): ❌ No matching methods with correct signature.");
+                return;
             }
 
-            XposedBridge.log("(InstaEclipse | AutoPlayDisable): ❌ No matching methods with correct signature.");
-        } catch (Exception e) {
+            hookMethod(new DexMethod(methods.get(0)));
+        } catch (Throwable e) {
             XposedBridge.log("(InstaEclipse | AutoPlayDisable): ❌ Error during method discovery: " + e.getMessage());
         }
     }
 
-    private void hookMethod(MethodData method) {
+    private void hookMethod(DexMethod method) {
         try {
-            Method targetMethod = method.getMethodInstance(Module.hostClassLoader);
+            Method targetMethod = StartupTracer.getMethodInstance("AutoPlayDisable", method, Module.hostClassLoader);
 
             // Step 3: Hook the method dynamically
-            XposedBridge.hookMethod(targetMethod, new XC_MethodHook() {
+            StartupTracer.hookMethod("AutoPlayDisable", targetMethod, new XC_MethodHook() {
                 @Override
                 protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                    if (FeatureFlags.disableVideoAutoPlay) {
+                    if (FeatureFlags.snapshot().has(FlagSnapshot.DISABLE_VIDEO_AUTOPLAY)) {
                         // If disableVideoAutoPlay is true, force return true
                         param.setResult(true);
                     }
@@ -0,0 +1,124 @@
+package ps.reso.instaeclipse.mods.misc;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ps.reso.instaeclipse.mods.network.NetworkState;
+import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+/**
+ * Data saver: on metered networks, image requests are rewritten to a smaller variant.
+ * <p>
+ * Instagram's CDN URLs are signed, so a size cannot simply be edited into them. Instead, every
+ * image in an API response comes with a list of candidates (the same image in several signed
+ * sizes); the response filter hands those lists to {@link #record}, which maps each candidate
+ * wider than {@link FeatureFlags#dataSaverMaxWidth} to the largest one that fits. The request
+ * hook then swaps a mapped URI for its precomputed replacement with a single lookup.
+ */
+public class DataSaver {
+
+    public static final int[] MAX_WIDTHS = {480, 720, 1080};
+    private static final int MAX_ENTRIES = 4096;
+
+    private static final class Variant {
+        final URI uri;
+        final int fromWidth;
+        final int toWidth;
+
+        Variant(URI uri, int fromWidth, int toWidth) {
+            this.uri = uri;
+            this.fromWidth = fromWidth;
+            this.toWidth = toWidth;
+        }
+    }
+
+    // Original URI -> smaller variant
+    private static final Map<String, Variant> variants = new ConcurrentHashMap<>();
+
+    // This session only
+    private static final LongAdder rewrites = new LongAdder();
+    private static final LongAdder requestedPixels = new LongAdder();
+    private static final LongAdder servedPixels = new LongAdder();
+
+    public static boolean isActive(FlagSnapshot flags) {
+        return flags.has(FlagSnapshot.DATA_SAVER) && NetworkState.isMetered();
+    }
+
+    /**
+     * Records the size variants of one image: {@code widths[i]} is the width of {@code urls[i]}.
+     */
+    public static void record(int[] widths, String[] urls, int count) {
+        if (count < 2) {
+            return;
+        }
+
+        int maxWidth = FeatureFlags.snapshot().dataSaverMaxWidth;
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (widths[i] <= maxWidth && (best < 0 || widths[i] > widths[best])) best = i;
+        }
+        if (best < 0) {
+            // Nothing fits; the smallest variant is still the cheapest
+            best = 0;
+            for (int i = 1; i < count; i++) {
+                if (widths[i] < widths[best]) best = i;
+            }
+        }
+
+        URI replacement;
+        try {
+            replacement = new URI(urls[best]);
+        } catch (Exception e) {
+            return;
+        }
+
+        if (variants.size() >= MAX_ENTRIES) {
+            variants.clear();
+        }
+        for (int i = 0; i < count; i++) {
+            if (widths[i] > widths[best]) {
+                variants.put(urls[i], new Variant(replacement, widths[i], widths[best]));
+            }
+        }
+    }
+
+    /**
+     * Returns the smaller variant to request instead of {@code uri}, or null to leave it.
+     */
+    public static URI rewrite(URI uri) {
+        Variant variant = variants.get(uri.toString());
+        if (variant == null) {
+            return null;
+        }
+        rewrites.increment();
+        // Same image, so the pixel count scales with the square of the width
+        requestedPixels.add((long) variant.fromWidth * variant.fromWidth);
+        servedPixels.add((long) variant.toWidth * variant.toWidth);
+        return variant.uri;
+    }
+
+    /**
+     * Drops the recorded variants, e.g. after the maximum width changed.
+     */
+    public static void clearVariants() {
+        variants.clear();
+    }
+
+    public static int nextMaxWidth(int current) {
+        for (int width : MAX_WIDTHS) {
+            if (width > current) return width;
+        }
+        return MAX_WIDTHS[0];
+    }
+
+    public static String summary() {
+        long requested = requestedPixels.sum();
+        long saved = requested - servedPixels.sum();
+        return "🖼️ Images downsized this session: " + rewrites.sum()
+                + (requested > 0 ? String.format(Locale.US, " (~%.0f%% fewer pixels)", saved * 100.0 / requested) : "");
+    }
+}
@@ -9,18 +9,87 @@ import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.MethodData;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import de.robv.android.xposed.XposedHelpers;
+import ps.reso.instaeclipse.mods.network.EndpointObservers;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryLog;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
+import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
 import ps.reso.instaeclipse.utils.toast.CustomToast;
+import ps.reso.instaeclipse.utils.tracker.FollowIndicatorTracker;
 
 public class FollowerIndicator {
 
+    public static final String CACHE_KEY = "FollowerIndicator";
+    public static final String USER_ID_CACHE_KEY = "FollowerUserIdClass";
+    private static final String FRIENDSHIP_STATUS_CLASS = "com.instagram.user.model.FriendshipStatus";
+
     public String type;
 
+    /**
+     * Tracks the profile being viewed from /api/v1/friendships/show/{id} requests.
+     */
+    public static void observeProfileRequests() {
+        EndpointObservers.register("/api/v1/friendships/show/", FlagSnapshot.SHOW_FOLLOWER_TOAST, (uri, path, prefixEnd) -> {
+            if (!FeatureFlags.snapshot().has(FlagSnapshot.SHOW_FOLLOWER_TOAST)) {
+                return;
+            }
+            int end = EndpointObservers.segmentEnd(path, prefixEnd);
+            int length = end - prefixEnd;
+            if (length == 0) {
+                return;
+            }
+            // Only allocate the ID string when the viewed profile changes
+            String current = FollowIndicatorTracker.currentlyViewedUserId;
+            if (current == null || current.length() != length || !path.regionMatches(prefixEnd, current, 0, length)) {
+                FollowIndicatorTracker.currentlyViewedUserId = path.substring(prefixEnd, end);
+            }
+        });
+    }
+
+    // [type, methodName, isBlockingReelMethodName or "", userClassName], or null if not found
+    public List<String> findFollowerEntry(DexKitBridge bridge) {
+        FollowMethodResult result = findFollowerStatusMethod(bridge);
+        return result != null ? result.toCacheEntry(type) : null;
+    }
+
+    // [userIdClassName], or null if it is not needed or not found
+    public List<String> findUserIdEntry(DexKitBridge bridge, String userClassName) {
+        if (!FRIENDSHIP_STATUS_CLASS.equals(userClassName)) {
+            return null;
+        }
+        String userIdClass = findUserIdClassIfNeeded(bridge, userClassName);
+        return userIdClass != null ? Collections.singletonList(userIdClass) : null;
+    }
+
+    public FollowMethodResult resolveFollowerStatusMethod() throws Throwable {
+        List<String> entry = DiscoveryCache.resolve(CACHE_KEY, this::findFollowerEntry);
+
+        if (entry.size() < 4) {
+            return null;
+        }
+        type = entry.get(0);
+        return FollowMethodResult.fromCacheEntry(entry);
+    }
+
+    public String resolveUserIdClass(String userClassName) throws Throwable {
+        if (!FRIENDSHIP_STATUS_CLASS.equals(userClassName)) {
+            return userClassName;
+        }
+
+        List<String> entry = DiscoveryCache.resolve(USER_ID_CACHE_KEY, bridge -> findUserIdEntry(bridge, userClassName));
+        return entry.isEmpty() ? null : entry.get(0);
+    }
+
     public FollowMethodResult findFollowerStatusMethod(DexKitBridge bridge) {
         try {
 
@@ -46,7 +115,7 @@ public class FollowerIndicator {
             try {
                 // Step 2: Try method detection (obfuscated User class)
                 String obfUserClass = null;
-                List<MethodData> errMethods = bridge.findMethod(FindMethod.create().matcher(MethodMatcher.create().usingStrings("ERROR_INSERT_EXPIRED_URL")));
+                List<MethodData> errMethods = StringAnchors.methods(bridge, StringAnchors.ERROR_INSERT_EXPIRED_URL);
                 if (!errMethods.isEmpty()) {
                     obfUserClass = errMethods.get(0).getClassName();
                 }
@@ -92,7 +161,7 @@ public class FollowerIndicator {
             }
 
         } catch (Throwable e) {
-            XposedBridge.log("❌ Error in findFollowerStatusMethod: " + e.getMessage());
+            DiscoveryLog.log("❌ Error in findFollowerStatusMethod: " + e.getMessage());
         }
         return null;
     }
@@ -109,7 +178,7 @@ public class FollowerIndicator {
 
                 try {
                     // Find method referencing "username_missing_during_update"
-                    List<MethodData> methods = bridge.findMethod(FindMethod.create().matcher(MethodMatcher.create().usingStrings("username_missing_during_update")));
+                    List<MethodData> methods = StringAnchors.methods(bridge, StringAnchors.USERNAME_MISSING);
 
                     if (!methods.isEmpty()) {
                         MethodData m = methods.get(0);
@@ -134,7 +203,7 @@ public class FollowerIndicator {
                     }
 
                 } catch (Throwable e) {
-                    XposedBridge.log("❌ Error finding user class via 'username_missing_during_update': " + e.getMessage());
+                    DiscoveryLog.log("❌ Error finding user class via 'username_missing_during_update': " + e.getMessage());
                 }
                 return userClass;
             }
@@ -200,7 +269,7 @@ public class FollowerIndicator {
                     Boolean followsMe = (Boolean) param.getResult();
                     String targetId = ps.reso.instaeclipse.utils.tracker.FollowIndicatorTracker.currentlyViewedUserId;
                     try {
-                        if (userId[0] != null && userId[0].equals(targetId) && ps.reso.instaeclipse.utils.feature.FeatureFlags.showFollowerToast) {
+                        if (userId[0] != null && userId[0].equals(targetId) && FeatureFlags.snapshot().has(FlagSnapshot.SHOW_FOLLOWER_TOAST)) {
                             Context context = AndroidAppHelper.currentApplication().getApplicationContext();
                             String message;
                             if (username != null && !username.isEmpty()) {
@@ -232,7 +301,7 @@ public class FollowerIndicator {
                         Boolean isBlockingReel = (Boolean) param.getResult();
                         String targetId = ps.reso.instaeclipse.utils.tracker.FollowIndicatorTracker.currentlyViewedUserId;
                         
-                        if (targetId != null && isBlockingReel != null && isBlockingReel && ps.reso.instaeclipse.utils.feature.FeatureFlags.showStoryHiddenToast) {
+                        if (targetId != null && isBlockingReel != null && isBlockingReel && FeatureFlags.snapshot().has(FlagSnapshot.SHOW_STORY_HIDDEN_TOAST)) {
                              if (!targetId.equals(ps.reso.instaeclipse.utils.tracker.FollowIndicatorTracker.lastStoryToastId)) {
                                  Context context = AndroidAppHelper.currentApplication().getApplicationContext();
                                  CustomToast.showCustomToast(context, "This user has hidden their story from you! 🚫");
@@ -241,12 +310,12 @@ public class FollowerIndicator {
                         }
                     }
                 });
-                FeatureStatusTracker.setHooked("ShowStoryHiddenToast");
+                FeatureStatusTracker.setHooked(Feature.SHOW_STORY_HIDDEN_TOAST);
             }
 
 
             XposedBridge.log("(InstaEclipse | FollowerStatus): ✅ Hooked (" + type + "): " + userClassName + "." + followerStatusMethod);
-            FeatureStatusTracker.setHooked("ShowFollowerToast");
+            FeatureStatusTracker.setHooked(Feature.SHOW_FOLLOWER_TOAST);
 
         } catch (Exception e) {
             XposedBridge.log("❌ Error hooking follower status: " + e.getMessage());
@@ -263,5 +332,14 @@ public class FollowerIndicator {
             this.isBlockingReelMethodName = isBlockingReelMethodName;
             this.userClassName = userClassName;
         }
+
+        List<String> toCacheEntry(String type) {
+            return Arrays.asList(type, methodName, isBlockingReelMethodName != null ? isBlockingReelMethodName : "", userClassName);
+        }
+
+        public static FollowMethodResult fromCacheEntry(List<String> entry) {
+            String isBlockingReel = entry.get(2).isEmpty() ? null : entry.get(2);
+            return new FollowMethodResult(entry.get(1), isBlockingReel, entry.get(3));
+        }
     }
 }
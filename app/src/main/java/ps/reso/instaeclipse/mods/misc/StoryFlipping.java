@@ -4,37 +4,58 @@ import org.luckypray.dexkit.DexKitBridge;
 import org.luckypray.dexkit.query.FindMethod;
 import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class StoryFlipping {
 
-    public void handleStoryFlippingDisable(DexKitBridge bridge) {
+    public static final String CACHE_KEY = "StoryFlipping";
+
+    public void handleStoryFlippingDisable() {
         try {
-            findAndHookMethod(bridge);
+            findAndHookMethod();
         } catch (Exception e) {
             XposedBridge.log("(InstaEclipse | StoryFlipping): ❌ Error handling Story Flipping hook: " + e.getMessage());
         }
     }
 
-    private void findAndHookMethod(DexKitBridge bridge) {
+    public List<String> findStoryFlippingMethods(DexKitBridge bridge) {
+        // Step 1: Find methods matching the targeted method structure
+        List<MethodData> methods = bridge.findMethod(
+                FindMethod.create().matcher(
+                        MethodMatcher.create()
+                                .declaredClass("instagram.features.stories.fragment.ReelViewerFragment")
+                                .paramTypes("java.lang.Object")
+                                .returnType("void")
+                                .usingStrings("userSession")
+                )
+        );
+
+        List<String> descriptors = new ArrayList<>();
+        for (MethodData method : methods) {
+            descriptors.add(method.getDescriptor());
+        }
+        return descriptors;
+    }
+
+    public List<String> resolveStoryFlippingMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findStoryFlippingMethods);
+    }
+
+    private void findAndHookMethod() {
         try {
-            // Step 1: Find methods matching the targeted method structure
-            List<MethodData> methods = bridge.findMethod(
-                    FindMethod.create().matcher(
-                            MethodMatcher.create()
-                                    .declaredClass("instagram.features.stories.fragment.ReelViewerFragment")
-                                    .paramTypes("java.lang.Object")
-                                    .returnType("void")
-                                    .usingStrings("userSession")
-                    )
-            );
+            List<String> methods = resolveStoryFlippingMethods();
 
             if (methods.isEmpty()) {
                 XposedBridge.log("(InstaEclipse | StoryFlipping): ❌ No methods found referencing 'end_scene'.");
@@ -42,14 +63,15 @@ public class StoryFlipping {
             }
 
             // Step 2: Hook the correct method
-            for (MethodData method : methods) {
+            for (String descriptor : methods) {
+                DexMethod method = new DexMethod(descriptor);
                 try {
-                    Method targetMethod = method.getMethodInstance(Module.hostClassLoader);
+                    Method targetMethod = StartupTracer.getMethodInstance("StoryFlipping", method, Module.hostClassLoader);
 
-                    XposedBridge.hookMethod(targetMethod, new XC_MethodHook() {
+                    StartupTracer.hookMethod("StoryFlipping", targetMethod, new XC_MethodHook() {
                         @Override
                         protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                            if (FeatureFlags.disableStoryFlipping) {
+                            if (FeatureFlags.snapshot().has(FlagSnapshot.DISABLE_STORY_FLIPPING)) {
                                 // If disableStoryFlipping is enabled, block story flipping
                                 param.setResult(null); // Skip original method
                             }
@@ -64,7 +86,7 @@ public class StoryFlipping {
                     XposedBridge.log("(InstaEclipse | StoryFlipping): ❌ Error hooking method: " + e.getMessage());
                 }
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             XposedBridge.log("(InstaEclipse | StoryFlipping): ❌ Error during dynamic method discovery: " + e.getMessage());
         }
     }
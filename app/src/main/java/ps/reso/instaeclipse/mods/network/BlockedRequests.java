@@ -0,0 +1,52 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts blocked requests and how often Instagram retries them.
+ * <p>
+ * A blocked request is redirected to https://127.0.0.1/404, fails there and goes through
+ * Instagram's normal error handling, which often retries it. Skipping startRequest instead
+ * would leave the request's callback waiting forever, since Tigon's callback types are
+ * obfuscated and cannot be completed reliably, so the redirect is the only way a request ends.
+ */
+public class BlockedRequests {
+
+    // A blocked URI seen again within this window counts as a retry
+    private static final long RETRY_WINDOW_MS = 30_000;
+    private static final int RECENT_SLOTS = 64;
+
+    public static final LongAdder redirected = new LongAdder();
+    public static final LongAdder redirectRetries = new LongAdder();
+
+    // slot -> (uri hash << 32) | (uptime seconds)
+    private static final AtomicLongArray recent = new AtomicLongArray(RECENT_SLOTS);
+
+    static void record(URI uri, long nowMs) {
+        redirected.increment();
+        if (isRepeat(uri.hashCode(), nowMs)) {
+            redirectRetries.increment();
+        }
+    }
+
+    static void reset() {
+        redirected.reset();
+        redirectRetries.reset();
+    }
+
+    public static String summary() {
+        return "↪️ Redirected: " + redirected.sum() + " (" + redirectRetries.sum() + " retries)";
+    }
+
+    // Lossy: two URIs sharing a slot just overwrite each other
+    private static boolean isRepeat(int hash, long nowMs) {
+        int slot = (hash ^ (hash >>> 16)) & (RECENT_SLOTS - 1);
+        long nowSec = nowMs / 1000;
+        long previous = recent.getAndSet(slot, ((long) hash << 32) | (nowSec & 0xFFFFFFFFL));
+        return previous != 0
+                && (int) (previous >>> 32) == hash
+                && (nowSec - (previous & 0xFFFFFFFFL)) * 1000 <= RETRY_WINDOW_MS;
+    }
+}
@@ -0,0 +1,16 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.net.URI;
+
+/**
+ * Sees every request whose decoded path starts with the prefix it was registered for, see
+ * {@link EndpointObservers}. Called on Instagram's network threads, so it must be quick.
+ */
+public interface EndpointObserver {
+
+    /**
+     * @param path      the decoded path, {@code uri.getPath()}
+     * @param prefixEnd index in {@code path} right after the registered prefix
+     */
+    void onRequest(URI uri, String path, int prefixEnd);
+}
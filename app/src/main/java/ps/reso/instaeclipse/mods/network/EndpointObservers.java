@@ -0,0 +1,110 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+/**
+ * Registry of {@link EndpointObserver}s keyed by path prefix.
+ * <p>
+ * Prefixes are kept in a character trie, so routing a request is one walk down the path that
+ * stops as soon as no registered prefix continues it; only observers whose prefix matches run.
+ * The trie is rebuilt on registration (rare) and published through a volatile field, so the
+ * request path reads it without locking. Each observer names the flags it needs, so a hook
+ * whose features are all off skips routing altogether.
+ */
+public class EndpointObservers {
+
+    private static final Map<String, List<EndpointObserver>> registered = new LinkedHashMap<>();
+    private static volatile Node root;
+    // Union of the registered observers' flags
+    private static volatile long flags;
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        EndpointObserver[] observers = new EndpointObserver[0];
+
+        Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) return children[i];
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Routes requests under {@code prefix} to {@code observer} while any of {@code flags} is set.
+     * The observer still checks its own flags; other observers may keep routing active.
+     */
+    public static synchronized void register(String prefix, long flags, EndpointObserver observer) {
+        registered.computeIfAbsent(prefix, k -> new ArrayList<>()).add(observer);
+        EndpointObservers.flags |= flags;
+        root = build();
+    }
+
+    /**
+     * Whether some registered observer wants requests under {@code snapshot}.
+     */
+    public static boolean isActive(FlagSnapshot snapshot) {
+        return root != null && snapshot.hasAny(flags);
+    }
+
+    /**
+     * Runs every observer whose prefix {@code path} starts with, shortest prefix first.
+     */
+    public static void dispatch(URI uri, String path) {
+        Node node = root;
+        int length = path.length();
+        for (int i = 0; node != null; i++) {
+            for (EndpointObserver observer : node.observers) {
+                observer.onRequest(uri, path, i);
+            }
+            if (i == length) {
+                return;
+            }
+            node = node.child(path.charAt(i));
+        }
+    }
+
+    /**
+     * End of the path segment starting at {@code start}: the next '/' or the end of the path.
+     */
+    public static int segmentEnd(String path, int start) {
+        int slash = path.indexOf('/', start);
+        return slash < 0 ? path.length() : slash;
+    }
+
+    private static Node build() {
+        Node built = new Node();
+        for (Map.Entry<String, List<EndpointObserver>> entry : registered.entrySet()) {
+            Node node = built;
+            String prefix = entry.getKey();
+            for (int i = 0; i < prefix.length(); i++) {
+                Node next = node.child(prefix.charAt(i));
+                if (next == null) {
+                    next = new Node();
+                    int n = node.keys.length;
+                    char[] keys = new char[n + 1];
+                    Node[] children = new Node[n + 1];
+                    System.arraycopy(node.keys, 0, keys, 0, n);
+                    System.arraycopy(node.children, 0, children, 0, n);
+                    keys[n] = prefix.charAt(i);
+                    children[n] = next;
+                    node.keys = keys;
+                    node.children = children;
+                }
+                node = next;
+            }
+            List<EndpointObserver> observers = new ArrayList<>();
+            for (EndpointObserver observer : node.observers) observers.add(observer);
+            observers.addAll(entry.getValue());
+            node.observers = observers.toArray(new EndpointObserver[0]);
+        }
+        return built;
+    }
+}
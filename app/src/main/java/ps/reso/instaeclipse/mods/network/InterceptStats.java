@@ -0,0 +1,111 @@
+package ps.reso.instaeclipse.mods.network;
+
+import com.google.gson.GsonBuilder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interceptor counters: every request, and per rule and per category how many matched, were
+ * blocked or were let through by an exempt rule.
+ * <p>
+ * Counters are {@link LongAdder}s, which stripe increments across cells under contention, so
+ * network threads never fight over one cache line. Rules get their counters when compiled,
+ * keyed by their description, so a recompile on a flag change keeps counting where it left off.
+ * <p>
+ * No bytes-saved figure is reported: a blocked request never gets a response, so its size is
+ * unknown, and the app-wide average is no estimate for any one endpoint.
+ */
+public class InterceptStats {
+
+    public static final class Counters {
+        public final LongAdder matched = new LongAdder();
+        public final LongAdder blocked = new LongAdder();
+        public final LongAdder passed = new LongAdder();
+    }
+
+    public static final LongAdder requests = new LongAdder();
+    public static final LongAdder unmatched = new LongAdder();
+
+    private static final Map<String, Counters> rules = new ConcurrentHashMap<>();
+    private static final Map<String, Counters> categories = new ConcurrentHashMap<>();
+
+    static Counters forRule(String key) {
+        return rules.computeIfAbsent(key, k -> new Counters());
+    }
+
+    static Counters forCategory(String category) {
+        return categories.computeIfAbsent(category, k -> new Counters());
+    }
+
+    public static void reset() {
+        requests.reset();
+        unmatched.reset();
+        for (Counters counters : rules.values()) reset(counters);
+        for (Counters counters : categories.values()) reset(counters);
+        BlockedRequests.reset();
+    }
+
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Requests: ").append(requests.sum()).append(" (").append(unmatched.sum()).append(" matched no rule)\n");
+
+        for (Map.Entry<String, Counters> entry : new TreeMap<>(categories).entrySet()) {
+            Counters counters = entry.getValue();
+            sb.append("\n").append(entry.getKey()).append(": ")
+                    .append(counters.blocked.sum()).append(" blocked, ")
+                    .append(counters.passed.sum()).append(" passed");
+        }
+
+        sb.append("\n");
+        for (Map.Entry<String, Counters> entry : new TreeMap<>(rules).entrySet()) {
+            Counters counters = entry.getValue();
+            if (counters.matched.sum() == 0) continue;
+            sb.append("\n").append(counters.matched.sum()).append(" × ").append(entry.getKey());
+        }
+
+        sb.append("\n\n").append(BlockedRequests.summary());
+        return sb.toString();
+    }
+
+    public static String toJson() {
+        Map<String, Object> report = new TreeMap<>();
+        report.put("requests", requests.sum());
+        report.put("unmatched", unmatched.sum());
+
+        Map<String, Object> categoryReport = new TreeMap<>();
+        for (Map.Entry<String, Counters> entry : categories.entrySet()) {
+            categoryReport.put(entry.getKey(), values(entry.getValue()));
+        }
+        report.put("categories", categoryReport);
+
+        Map<String, Object> ruleReport = new TreeMap<>();
+        for (Map.Entry<String, Counters> entry : rules.entrySet()) {
+            ruleReport.put(entry.getKey(), values(entry.getValue()));
+        }
+        report.put("rules", ruleReport);
+
+        Map<String, Object> blockedReport = new TreeMap<>();
+        blockedReport.put("redirected", BlockedRequests.redirected.sum());
+        blockedReport.put("redirectRetries", BlockedRequests.redirectRetries.sum());
+        report.put("blockedRequests", blockedReport);
+
+        return new GsonBuilder().setPrettyPrinting().create().toJson(report);
+    }
+
+    private static Map<String, Object> values(Counters counters) {
+        Map<String, Object> values = new TreeMap<>();
+        values.put("matched", counters.matched.sum());
+        values.put("blocked", counters.blocked.sum());
+        values.put("passed", counters.passed.sum());
+        return values;
+    }
+
+    private static void reset(Counters counters) {
+        counters.matched.reset();
+        counters.blocked.reset();
+        counters.passed.reset();
+    }
+}
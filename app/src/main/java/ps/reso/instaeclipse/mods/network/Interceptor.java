@@ -1,5 +1,7 @@
 package ps.reso.instaeclipse.mods.network;
 
+import android.os.SystemClock;
+
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URI;
@@ -8,12 +10,26 @@ import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import de.robv.android.xposed.XposedHelpers;
 import de.robv.android.xposed.callbacks.XC_LoadPackage;
+import ps.reso.instaeclipse.mods.misc.DataSaver;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
-import ps.reso.instaeclipse.utils.tracker.FollowIndicatorTracker;
 
 public class Interceptor {
 
+    // Where redirected requests go; URI is immutable, so one instance serves them all
+    private static final URI BLOCKED_URI = URI.create("https://127.0.0.1/404");
+
+    /**
+     * True if any enabled feature relies on rewriting or observing requests.
+     */
+    public static boolean isNeeded() {
+        FlagSnapshot flags = FeatureFlags.snapshot();
+        return !UriRules.current(flags).isEmpty() || UserBlocklist.current().length > 0
+                || flags.hasAny(FlagSnapshot.SHOW_FOLLOWER_TOAST | FlagSnapshot.DATA_SAVER | FlagSnapshot.RECORD_TRAFFIC);
+    }
+
     public void handleInterceptor(XC_LoadPackage.LoadPackageParam lpparam) {
         try {
             ClassLoader classLoader = lpparam.classLoader;
@@ -25,7 +41,7 @@ public class Interceptor {
             Class<?> random_param_1 = null;
             Class<?> random_param_2 = null;
             Class<?> random_param_3 = null;
-            String uriFieldName = null;
+            Field uriField = null;
 
             // Analyze methods in TigonServiceLayer
             for (Method method : methods) {
@@ -38,127 +54,26 @@ public class Interceptor {
                 }
             }
 
-            // Dynamically identify the URI field in c5aE
+            // Dynamically identify the URI field in c5aE; resolved once instead of by name per request
             if (random_param_1 != null) {
                 for (Field field : random_param_1.getDeclaredFields()) {
                     if (field.getType().equals(URI.class)) {
-                        uriFieldName = field.getName();
+                        field.setAccessible(true);
+                        uriField = field;
                         break;
                     }
                 }
             }
 
             // If classes and fields are resolved, hook the method
-            if (random_param_1 != null && random_param_2 != null && random_param_3 != null && uriFieldName != null) {
-                String finalUriFieldName = uriFieldName;
+            if (random_param_1 != null && random_param_2 != null && random_param_3 != null && uriField != null) {
+                Field finalUriField = uriField;
+                UserBlocklist.watch();
                 XposedHelpers.findAndHookMethod("com.instagram.api.tigon.TigonServiceLayer", classLoader, "startRequest",
                         random_param_1, random_param_2, random_param_3, new XC_MethodHook() {
                             @Override
-                            protected void beforeHookedMethod(MethodHookParam param) {
-                                Object requestObj = param.args[0]; // Dynamic object
-                                URI uri = (URI) XposedHelpers.getObjectField(requestObj, finalUriFieldName);
-
-                                if (uri != null && uri.getPath() != null) {
-                                    // Check all conditions passed in as predicates
-                                    boolean shouldDrop = false;
-
-                                    // Ghost Mode URIs
-                                    if (FeatureFlags.isGhostScreenshot) {
-                                        shouldDrop |= uri.getPath().endsWith("/screenshot/") || uri.getPath().endsWith("/ephemeral_screenshot/");
-                                    }
-                                    if (FeatureFlags.isGhostViewOnce) {
-                                        shouldDrop |= uri.getPath().endsWith("/item_replayed/");
-                                        shouldDrop |= (uri.getPath().contains("/direct") && uri.getPath().endsWith("/item_seen/"));
-                                    }
-                                    if (FeatureFlags.isGhostStory) {
-                                        shouldDrop |= uri.getPath().contains("/api/v2/media/seen/");
-                                    }
-                                    if (FeatureFlags.isGhostLive) {
-                                        shouldDrop |= uri.getPath().contains("/heartbeat_and_get_viewer_count/");
-                                        FeatureStatusTracker.setHooked("GhostLive");
-                                    }
-
-                                    // Distraction Free
-                                    if (FeatureFlags.disableStories) {
-                                        shouldDrop |= uri.getPath().contains("/feed/reels_tray/")
-                                                || uri.getPath().contains("feed/get_latest_reel_media/")
-                                                || uri.getPath().contains("direct_v2/pending_inbox/?visual_message")
-                                                || uri.getPath().contains("stories/hallpass/")
-                                                || uri.getPath().contains("/api/v1/feed/reels_media_stream/");
-                                    }
-                                    if (FeatureFlags.disableFeed) {
-                                        shouldDrop |= uri.getPath().endsWith("/feed/timeline/");
-                                    }
-                                    if (FeatureFlags.disableReels && !FeatureFlags.disableReelsExceptDM) {
-                                        shouldDrop |= uri.getPath().endsWith("/qp/batch_fetch/")
-                                                || uri.getPath().contains("api/v1/clips")
-                                                || uri.getPath().contains("clips")
-                                                || uri.getPath().contains("mixed_media")
-                                                || uri.getPath().contains("mixed_media/discover/stream/");
-                                    }
-                                    if (FeatureFlags.disableReelsExceptDM) {
-                                        if (uri.getPath().startsWith("/api/v1/direct_v2/")) {
-                                            return;
-                                        }
-                                        shouldDrop |= (uri.getPath().startsWith("/api/v1/clips/") && uri.getQuery() != null
-                                                       && (uri.getQuery().contains("next_media_ids=")
-                                                        || uri.getQuery().contains("max_id=")))
-                                                   || uri.getPath().contains("/clips/discover/")
-                                                   || uri.getPath().contains("/mixed_media/discover/stream/");
-                                    }
-                                    if (FeatureFlags.disableExplore) {
-                                        shouldDrop |= uri.getPath().contains("/discover/topical_explore")
-                                                || uri.getPath().contains("/discover/topical_explore_stream")
-                                                || (uri.getHost().contains("i.instagram.com") && uri.getPath().contains("/api/v1/fbsearch/top_serp/"));
-                                    }
-                                    if (FeatureFlags.disableComments) {
-                                        shouldDrop |= uri.getPath().contains("/api/v1/media/") && uri.getPath().contains("comments/");
-                                    }
-
-                                    // Ads
-                                    if (FeatureFlags.isAdBlockEnabled) {
-                                        shouldDrop |= uri.getPath().contains("profile_ads/get_profile_ads/")
-                                                || uri.getPath().contains("/async_ads/")
-                                                || uri.getPath().contains("/feed/injected_reels_media/")
-                                                || uri.getPath().equals("/api/v1/ads/graphql/");
-                                    }
-
-                                    // Analytics
-                                    if (FeatureFlags.isAnalyticsBlocked) {
-                                        shouldDrop |= uri.getHost().contains("graph.instagram.com")
-                                                || uri.getHost().contains("graph.facebook.com")
-                                                || uri.getPath().contains("/logging_client_events");
-                                    }
-
-                                    if (shouldDrop) {
-                                        // XposedBridge.log("the URI was blocked: " + uri.getPath());
-                                        // Modify the URI to divert the request to a harmless endpoint
-                                        try {
-                                            URI fakeUri = new URI("https", "127.0.0.1", "/404", null);
-                                            XposedHelpers.setObjectField(requestObj, finalUriFieldName, fakeUri);
-                                            // XposedBridge.log("🚫 [InstaEclipse] Changed URI to: " + fakeUri);
-                                        } catch (Exception e) {
-                                            // XposedBridge.log("❌ [InstaEclipse] Failed to modify URI: " + e.getMessage());
-                                        }
-                                    }
-                                    /*
-                                     DEV Purposes
-                                    else {
-                                        XposedBridge.log("Logging: " + uri.getHost() + uri.getPath());
-                                    }
-                                    */
-
-                                    if (FeatureFlags.showFollowerToast) {
-                                        if (uri.getPath() != null && uri.getPath().startsWith("/api/v1/friendships/show/")) {
-                                            String[] parts = uri.getPath().split("/");
-                                            if (parts.length >= 5) {
-                                                // Extracted ID from /api/v1/friendships/show/{id}
-                                                FollowIndicatorTracker.currentlyViewedUserId = parts[5];
-                                            }
-                                        }
-                                    }
-
-                                }
+                            protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                                intercept(param.args[0], finalUriField);
                             }
                         }
                 );
@@ -170,4 +85,98 @@ public class Interceptor {
             XposedBridge.log("Error in interceptor: " + e.getMessage());
         }
     }
+
+    /**
+     * Handles one startRequest call: redirects it if a block rule matches.
+     * <p>
+     * This runs for every request, so the common paths allocate nothing: the URI field was
+     * resolved at install time, the path is decoded once and passed along, and every redirect
+     * reuses {@link #BLOCKED_URI}. When no feature looks at requests it returns before even
+     * reading the URI. All flags come from one snapshot, read on entry.
+     */
+    static void intercept(Object requestObj, Field uriField) throws IllegalAccessException {
+        FlagSnapshot flags = FeatureFlags.snapshot();
+        UriMatcher rules = UriRules.current(flags);
+        UriMatcher[] userMatchers = UserBlocklist.current();
+        boolean recording = flags.has(FlagSnapshot.RECORD_TRAFFIC);
+        boolean observing = EndpointObservers.isActive(flags);
+        if (rules.isEmpty() && userMatchers.length == 0 && !flags.has(FlagSnapshot.DATA_SAVER)
+                && !observing && !recording) {
+            return;
+        }
+
+        URI uri = (URI) uriField.get(requestObj);
+        if (uri == null) {
+            return;
+        }
+
+        // Decoded once; repeated endpoints hit the verdict cache, new ones take one pass over the rules
+        String path = uri.getPath();
+        if (path == null) {
+            return;
+        }
+
+        if (flags.has(FlagSnapshot.GHOST_LIVE)) {
+            FeatureStatusTracker.setHooked(Feature.GHOST_LIVE);
+        }
+
+        // Opt-in: time spent in this hook, recorded with the verdict
+        long hookStart = recording ? System.nanoTime() : 0;
+        UriRule matched = null;
+        try {
+            InterceptStats.requests.increment();
+            int verdict = rules.classify(uri, path);
+            if (verdict == UriMatcher.NO_MATCH) {
+                // User rules, swapped in by the file watcher
+                for (UriMatcher userRules : userMatchers) {
+                    verdict = userRules.classify(uri, path);
+                    if (verdict != UriMatcher.NO_MATCH) {
+                        rules = userRules;
+                        break;
+                    }
+                }
+            }
+            if (verdict == UriMatcher.NO_MATCH) {
+                InterceptStats.unmatched.increment();
+                if (DataSaver.isActive(flags)) {
+                    URI smaller = DataSaver.rewrite(uri);
+                    if (smaller != null) {
+                        uriField.set(requestObj, smaller);
+                    }
+                }
+            } else {
+                UriRule rule = rules.rule(verdict);
+                matched = rule;
+                rule.ruleCounters.matched.increment();
+                rule.categoryCounters.matched.increment();
+                if (rule.exempt) {
+                    rule.ruleCounters.passed.increment();
+                    rule.categoryCounters.passed.increment();
+                    return;
+                }
+
+                // XposedBridge.log("the URI was blocked: " + path);
+                // Modify the URI to divert the request to a harmless endpoint
+                uriField.set(requestObj, BLOCKED_URI);
+                BlockedRequests.record(uri, SystemClock.uptimeMillis());
+                rule.ruleCounters.blocked.increment();
+                rule.categoryCounters.blocked.increment();
+            }
+            /*
+             DEV Purposes
+            else {
+                XposedBridge.log("Logging: " + uri.getHost() + path);
+            }
+            */
+
+            // Features watching specific endpoints
+            if (observing) {
+                EndpointObservers.dispatch(uri, path);
+            }
+        } finally {
+            if (hookStart != 0) {
+                TrafficRecorder.record(uri, path, matched, System.nanoTime() - hookStart);
+            }
+        }
+    }
 }
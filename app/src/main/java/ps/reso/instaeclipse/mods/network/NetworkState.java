@@ -0,0 +1,58 @@
+package ps.reso.instaeclipse.mods.network;
+
+import android.app.AndroidAppHelper;
+import android.app.Application;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * Whether Instagram's default network is metered.
+ * <p>
+ * A default-network callback, registered on first use, flips a volatile flag; callers on the
+ * request path only read it.
+ */
+public class NetworkState {
+
+    private static volatile boolean metered;
+    private static volatile boolean watching;
+
+    public static boolean isMetered() {
+        if (!watching) {
+            watch();
+        }
+        return metered;
+    }
+
+    private static synchronized void watch() {
+        if (watching) {
+            return;
+        }
+        try {
+            Application app = AndroidAppHelper.currentApplication();
+            if (app == null) {
+                return; // Too early, retried on the next call
+            }
+            ConnectivityManager connectivity = (ConnectivityManager) app.getSystemService(Context.CONNECTIVITY_SERVICE);
+            metered = connectivity.isActiveNetworkMetered();
+            connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                    metered = !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+                }
+
+                @Override
+                public void onLost(Network network) {
+                    metered = connectivity.isActiveNetworkMetered();
+                }
+            });
+            watching = true;
+        } catch (Throwable t) {
+            watching = true; // Don't retry on every call
+            XposedBridge.log("(InstaEclipse | NetworkState): ❌ Cannot watch network type: " + t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.util.List;
+
+import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+/**
+ * Decides which prefetch requests the Interceptor suppresses.
+ * <p>
+ * Instagram marks background prefetches in the query ("is_prefetch", "prefetch_reason", ...).
+ * A prefetch for a surface the user disabled (stories, reels, comments) is never needed, so it
+ * is blocked on any network. With {@link FeatureFlags#limitPrefetchOnMetered}, every prefetch is
+ * blocked while the network is {@link NetworkState#isMetered metered}. The rules are plain
+ * {@link UriRule}s in the {@link UriRule#PREFETCH} category, so avoided prefetches are counted by
+ * {@link InterceptStats}.
+ */
+public class PrefetchPolicy {
+
+    private static final String MARKER = "prefetch";
+
+    // Set by TrafficReplay, which has no network to ask
+    static Boolean assumeMetered;
+
+    static void addRules(List<UriRule> rules, FlagSnapshot flags) {
+        if (flags.has(FlagSnapshot.DISABLE_STORIES)) {
+            rules.add(UriRule.block("PrefetchStories", UriRule.PREFETCH).pathContains("/feed/reels_media").queryContains(MARKER));
+            rules.add(UriRule.block("PrefetchStories", UriRule.PREFETCH).pathContains("/feed/reels_tray").queryContains(MARKER));
+            rules.add(UriRule.block("PrefetchStories", UriRule.PREFETCH).pathContains("/story").queryContains(MARKER));
+        }
+        if (flags.hasAny(FlagSnapshot.DISABLE_REELS | FlagSnapshot.DISABLE_REELS_EXCEPT_DM)) {
+            rules.add(UriRule.block("PrefetchReels", UriRule.PREFETCH).pathContains("/clips/").queryContains(MARKER));
+        }
+        if (flags.has(FlagSnapshot.DISABLE_COMMENTS)) {
+            rules.add(UriRule.block("PrefetchComments", UriRule.PREFETCH).pathContains("comments").queryContains(MARKER));
+        }
+        if (limitsMetered(flags)) {
+            rules.add(UriRule.block("PrefetchMetered", UriRule.PREFETCH).queryContains(MARKER));
+        }
+    }
+
+    /**
+     * True while all prefetches are suppressed because the network is metered.
+     */
+    static boolean limitsMetered(FlagSnapshot flags) {
+        if (!flags.has(FlagSnapshot.LIMIT_PREFETCH_ON_METERED)) {
+            return false;
+        }
+        Boolean metered = assumeMetered;
+        return metered != null ? metered : NetworkState.isMetered();
+    }
+
+    public static long avoided() {
+        return InterceptStats.forCategory(UriRule.PREFETCH).blocked.sum();
+    }
+}
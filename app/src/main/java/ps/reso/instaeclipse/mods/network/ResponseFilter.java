@@ -0,0 +1,113 @@
+package ps.reso.instaeclipse.mods.network;
+
+import org.luckypray.dexkit.DexKitBridge;
+import org.luckypray.dexkit.result.ClassData;
+import org.luckypray.dexkit.result.ClassDataList;
+import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.robv.android.xposed.XC_MethodHook;
+import de.robv.android.xposed.XposedBridge;
+import ps.reso.instaeclipse.mods.ads.AdBlocker;
+import ps.reso.instaeclipse.mods.misc.DataSaver;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
+import ps.reso.instaeclipse.utils.feature.Feature;
+import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
+
+/**
+ * Response-side stage: filters JSON responses while Instagram's parser reads them.
+ * <p>
+ * Hooks the JSON factory's createParser(InputStream) and hands the parser a
+ * {@link ResponseFilterStream} instead of the response body. With ad blocking on, items carrying
+ * an ad marker in feed, reels and story responses are dropped so they never become model objects
+ * (complementing {@link AdBlocker}, which only catches items inserted later). With the
+ * {@link DataSaver} on, image candidates are recorded so requests can be rewritten to a smaller
+ * variant.
+ */
+public class ResponseFilter {
+
+    public static final String CACHE_KEY = "ResponseFilter";
+
+    public static final LongAdder strippedItems = new LongAdder();
+
+    public List<String> findParserFactoryMethods(DexKitBridge bridge) {
+        // Step 1: Find the JSON factory class
+        List<ClassData> classes = StringAnchors.classes(bridge, StringAnchors.JSON_FACTORY);
+
+        List<String> descriptors = new ArrayList<>();
+        for (ClassData classData : classes) {
+            // Step 2: Match: <parser> createParser(InputStream)
+            for (MethodData method : classData.getMethods()) {
+                ClassDataList paramTypes = method.getParamTypes();
+                String returnType = String.valueOf(method.getReturnType());
+
+                if (paramTypes.size() == 1 &&
+                        String.valueOf(paramTypes.get(0)).contains("java.io.InputStream") &&
+                        !returnType.contains("void") &&
+                        !returnType.contains("java.io.InputStream")) {
+                    descriptors.add(method.getDescriptor());
+                }
+            }
+        }
+        return descriptors;
+    }
+
+    public List<String> resolveParserFactoryMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, this::findParserFactoryMethods);
+    }
+
+    public void handleResponseFilter(ClassLoader classLoader) {
+        try {
+            List<String> methods = resolveParserFactoryMethods();
+
+            if (methods.isEmpty()) {
+                XposedBridge.log("(InstaEclipse | ResponseFilter): ❌ No JSON parser factory found");
+                return;
+            }
+
+            int hooked = 0;
+            for (String descriptor : methods) {
+                try {
+                    Method targetMethod = StartupTracer.getMethodInstance("ResponseFilter", new DexMethod(descriptor), classLoader);
+
+                    StartupTracer.hookMethod("ResponseFilter", targetMethod, new XC_MethodHook() {
+                        @Override
+                        protected void beforeHookedMethod(MethodHookParam param) {
+                            FlagSnapshot flags = FeatureFlags.snapshot();
+                            boolean stripSponsored = flags.has(FlagSnapshot.AD_BLOCK);
+                            boolean recordImages = flags.has(FlagSnapshot.DATA_SAVER);
+                            // Overloads delegate to each other; wrap the body only once
+                            if ((stripSponsored || recordImages) && param.args[0] instanceof InputStream
+                                    && !(param.args[0] instanceof ResponseFilterStream)) {
+                                param.args[0] = new ResponseFilterStream((InputStream) param.args[0], stripSponsored, recordImages);
+                            }
+                        }
+                    });
+
+                    XposedBridge.log("(InstaEclipse | ResponseFilter): ✅ Hooked: " +
+                            targetMethod.getDeclaringClass().getName() + "." + targetMethod.getName());
+                    hooked++;
+                } catch (Throwable hookEx) {
+                    XposedBridge.log("(InstaEclipse | ResponseFilter): ❌ Failed to hook: " + hookEx.getMessage());
+                }
+            }
+
+            if (hooked > 0) {
+                FeatureStatusTracker.setHooked(Feature.RESPONSE_FILTER);
+            }
+
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse | ResponseFilter): ❌ Exception: " + t.getMessage());
+        }
+    }
+}
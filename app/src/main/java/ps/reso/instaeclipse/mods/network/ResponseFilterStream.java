@@ -0,0 +1,444 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import ps.reso.instaeclipse.mods.misc.DataSaver;
+
+/**
+ * Filters a JSON response while it is being read: removes sponsored items and records image
+ * candidates for the {@link DataSaver}.
+ * <p>
+ * The stream runs a byte-level tokenizer over the payload (structural characters are ASCII, so
+ * UTF-8 needs no decoding). Outside of the item arrays listed in {@link #ITEM_ARRAYS} every byte
+ * is passed through as soon as it is read. Inside such an array only the element currently
+ * being read is held back: if it carries an {@link #MARKERS ad marker} whose value is set (not
+ * null, false, "" or an empty array or object) the element is discarded as soon as the first
+ * byte of that value shows it, and is no longer buffered; otherwise it is released when its
+ * separator arrives.
+ * Memory is bounded by the largest single item, never by the response.
+ * <p>
+ * Every JSON parse in the app goes through this stream, so item arrays only count as top-level
+ * keys of the response, which is where feed, reels and story endpoints put them. Arrays of the
+ * same name nested deeper (e.g. the items of a direct thread) are never touched.
+ * <p>
+ * Elements of "candidates" arrays (the size variants of one image) are read for their width
+ * and url as they pass; when the array closes they are handed to {@link DataSaver#record}.
+ */
+final class ResponseFilterStream extends FilterInputStream {
+
+    // Top-level arrays whose elements are feed, reels or story items
+    private static final byte[][] ITEM_ARRAYS = keys("feed_items", "items", "reels_media", "tray");
+    // Keys only set on sponsored items; organic ones may carry them as null or empty
+    private static final byte[][] MARKERS = keys("ad_id", "ad_metadata");
+    // Markers count on the item itself or one wrapper down (feed items wrap "media_or_ad")
+    private static final int MARKER_DEPTH = 2;
+    private static final int MARKER_NONE = 0;
+    private static final int MARKER_KEY = 1; // marker key read, value not started
+    private static final int MARKER_STRING = 2; // marker value is a string, not yet known to be empty
+    private static final int MARKER_CONTAINER = 3; // marker value is an array or object, no element yet
+    private static final int MAX_KEY = 16;
+
+    private static final byte[][] CANDIDATES = keys("candidates");
+    private static final byte[][] WIDTH = keys("width");
+    private static final byte[][] URL = keys("url");
+    private static final int FIELD_NONE = 0;
+    private static final int FIELD_WIDTH = 1;
+    private static final int FIELD_URL = 2;
+
+    private final boolean stripSponsored;
+    private final boolean recordImages;
+
+    private final byte[] raw = new byte[8192];
+    private final byte[] single = new byte[1];
+    private byte[] out = new byte[8192];
+    private int outPos;
+    private int outLen;
+    private boolean eof;
+
+    // Tokenizer
+    private boolean inString;
+    private boolean escape;
+    private final byte[] string = new byte[MAX_KEY];
+    private int stringLen; // > MAX_KEY once the string is too long to be a key we know
+    private boolean pendingItemArray;
+    private int depth;
+
+    // Item array being filtered, -1 if none
+    private int itemArrayDepth = -1;
+    private int keptItems;
+    private boolean inItem;
+    private boolean itemDropped;
+    private byte[] item = new byte[4096];
+    private int itemLen;
+    private int marker = MARKER_NONE;
+    private int markerDepth; // depth inside a MARKER_CONTAINER value
+
+    // Candidates array being recorded, -1 if none
+    private int candidatesDepth = -1;
+    private boolean pendingCandidates;
+    private int field = FIELD_NONE; // candidate field the next value belongs to
+    private boolean inUrl;
+    private byte[] url = new byte[512];
+    private int urlLen;
+    private int candidateWidth;
+    private String candidateUrl;
+    private int[] widths = new int[8];
+    private String[] urls = new String[8];
+    private int candidates;
+
+    ResponseFilterStream(InputStream in, boolean stripSponsored, boolean recordImages) {
+        super(in);
+        this.stripSponsored = stripSponsored;
+        this.recordImages = recordImages;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (outPos == outLen) {
+            if (eof) {
+                return -1;
+            }
+            outPos = 0;
+            outLen = 0;
+            int n = in.read(raw, 0, raw.length);
+            if (n < 0) {
+                eof = true;
+                // Truncated payload: hand out whatever item was pending as is
+                finishItem();
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                process(raw[i]);
+            }
+        }
+        int count = Math.min(len, outLen - outPos);
+        System.arraycopy(out, outPos, b, off, count);
+        outPos += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] scratch = new byte[(int) Math.min(n, 2048)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(scratch, 0, (int) Math.min(n - skipped, scratch.length));
+            if (read < 0) break;
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return outLen - outPos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void process(byte b) {
+        if (inString) {
+            if (marker == MARKER_STRING) {
+                // First byte of the value; a quote here closes an empty string
+                if (b == '"') {
+                    marker = MARKER_NONE;
+                } else {
+                    dropItem();
+                }
+            }
+            emit(b);
+            if (escape) {
+                escape = false;
+            } else if (b == '\\') {
+                escape = true;
+            } else if (b == '"') {
+                inString = false;
+            }
+            if (stringLen <= MAX_KEY && inString) {
+                if (stringLen < MAX_KEY) string[stringLen] = b;
+                stringLen++;
+            }
+            if (inUrl) {
+                if (inString) {
+                    appendUrl(b);
+                } else {
+                    inUrl = false;
+                    candidateUrl = unescape(url, urlLen);
+                }
+            }
+            return;
+        }
+
+        switch (b) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\r':
+                // Whitespace between items is dropped along with their separators
+                if (depth != itemArrayDepth || inItem) emit(b);
+                return;
+            case '"':
+                startValue(b);
+                inString = true;
+                stringLen = 0;
+                inUrl = field == FIELD_URL;
+                urlLen = 0;
+                field = FIELD_NONE;
+                emit(b);
+                return;
+            case ':':
+                // The string just closed was a key
+                if (recordImages) {
+                    field = FIELD_NONE;
+                    if (candidatesDepth < 0) {
+                        pendingCandidates = matches(CANDIDATES);
+                    } else if (depth == candidatesDepth + 1) {
+                        field = matches(WIDTH) ? FIELD_WIDTH : matches(URL) ? FIELD_URL : FIELD_NONE;
+                    }
+                }
+                if (stripSponsored && itemArrayDepth < 0 && depth == 1 && matches(ITEM_ARRAYS)) {
+                    pendingItemArray = true;
+                } else if (inItem && !itemDropped && depth - itemArrayDepth <= MARKER_DEPTH && matches(MARKERS)) {
+                    // Decided by the value: "ad_id":null or "ad_metadata":[] is not an ad
+                    marker = MARKER_KEY;
+                }
+                emit(b);
+                return;
+            case '{':
+            case '[': {
+                boolean opensItemArray = b == '[' && pendingItemArray;
+                boolean opensCandidates = b == '[' && pendingCandidates;
+                startValue(b);
+                emit(b);
+                depth++;
+                field = FIELD_NONE;
+                if (opensItemArray) {
+                    itemArrayDepth = depth;
+                    keptItems = 0;
+                }
+                if (opensCandidates) {
+                    candidatesDepth = depth;
+                    candidates = 0;
+                } else if (b == '{' && depth == candidatesDepth + 1) {
+                    candidateWidth = 0;
+                    candidateUrl = null;
+                }
+                return;
+            }
+            case ']':
+                if (marker == MARKER_CONTAINER && depth == markerDepth) {
+                    marker = MARKER_NONE;
+                }
+                if (depth == itemArrayDepth) {
+                    finishItem();
+                    itemArrayDepth = -1;
+                }
+                if (depth == candidatesDepth) {
+                    DataSaver.record(widths, urls, candidates);
+                    candidatesDepth = -1;
+                }
+                emit(b);
+                pop();
+                return;
+            case '}':
+                if (marker == MARKER_CONTAINER && depth == markerDepth) {
+                    marker = MARKER_NONE;
+                }
+                if (depth == candidatesDepth + 1) {
+                    addCandidate();
+                }
+                field = FIELD_NONE;
+                emit(b);
+                pop();
+                return;
+            case ',':
+                field = FIELD_NONE;
+                if (depth == itemArrayDepth) {
+                    finishItem();
+                    return;
+                }
+                emit(b);
+                return;
+            default:
+                // Numbers, true, false, null
+                startValue(b);
+                if (field == FIELD_WIDTH && b >= '0' && b <= '9') {
+                    candidateWidth = candidateWidth * 10 + (b - '0');
+                }
+                emit(b);
+        }
+    }
+
+    // b is the value's first byte, or any later byte of a number or literal
+    private void startValue(byte b) {
+        pendingItemArray = false;
+        pendingCandidates = false;
+        if (depth == itemArrayDepth && !inItem) {
+            inItem = true;
+            itemDropped = false;
+            itemLen = 0;
+            marker = MARKER_NONE;
+        }
+
+        if (marker == MARKER_KEY) {
+            if (b == '"') {
+                marker = MARKER_STRING;
+            } else if (b == '{' || b == '[') {
+                marker = MARKER_CONTAINER;
+                markerDepth = depth + 1;
+            } else if (b == 'n' || b == 'f') {
+                marker = MARKER_NONE;
+            } else {
+                dropItem();
+            }
+        } else if (marker == MARKER_CONTAINER && depth == markerDepth) {
+            // The marker's array or object has an element
+            dropItem();
+        }
+    }
+
+    private void dropItem() {
+        itemDropped = true;
+        itemLen = 0;
+        marker = MARKER_NONE;
+    }
+
+    private void finishItem() {
+        if (!inItem) {
+            return;
+        }
+        inItem = false;
+        marker = MARKER_NONE;
+        if (itemDropped) {
+            ResponseFilter.strippedItems.increment();
+            return;
+        }
+        if (keptItems++ > 0) append(',');
+        ensureOut(itemLen);
+        System.arraycopy(item, 0, out, outLen, itemLen);
+        outLen += itemLen;
+        itemLen = 0;
+    }
+
+    private void addCandidate() {
+        if (candidateUrl == null || candidateWidth <= 0) {
+            return;
+        }
+        if (candidates == widths.length) {
+            int[] grownWidths = new int[widths.length * 2];
+            System.arraycopy(widths, 0, grownWidths, 0, candidates);
+            widths = grownWidths;
+            String[] grownUrls = new String[urls.length * 2];
+            System.arraycopy(urls, 0, grownUrls, 0, candidates);
+            urls = grownUrls;
+        }
+        widths[candidates] = candidateWidth;
+        urls[candidates] = candidateUrl;
+        candidates++;
+    }
+
+    private void appendUrl(byte b) {
+        if (urlLen == url.length) {
+            byte[] grown = new byte[url.length * 2];
+            System.arraycopy(url, 0, grown, 0, urlLen);
+            url = grown;
+        }
+        url[urlLen++] = b;
+    }
+
+    // JSON string escapes; CDN urls are ASCII, so bytes map straight to chars
+    private static String unescape(byte[] bytes, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = (char) (bytes[i] & 0xFF);
+            if (c != '\\' || i + 1 == length) {
+                sb.append(c);
+                continue;
+            }
+            char next = (char) bytes[++i];
+            if (next == 'u' && i + 4 < length) {
+                sb.append((char) Integer.parseInt(new String(bytes, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                i += 4;
+            } else {
+                sb.append(next == 'n' ? '\n' : next == 't' ? '\t' : next == 'r' ? '\r' : next);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void emit(byte b) {
+        if (!inItem) {
+            append(b);
+        } else if (!itemDropped) {
+            if (itemLen == item.length) {
+                byte[] grown = new byte[item.length * 2];
+                System.arraycopy(item, 0, grown, 0, itemLen);
+                item = grown;
+            }
+            item[itemLen++] = b;
+        }
+    }
+
+    private void append(int b) {
+        ensureOut(1);
+        out[outLen++] = (byte) b;
+    }
+
+    private void ensureOut(int extra) {
+        if (outLen + extra > out.length) {
+            byte[] grown = new byte[Math.max(out.length * 2, outLen + extra)];
+            System.arraycopy(out, 0, grown, 0, outLen);
+            out = grown;
+        }
+    }
+
+    private void pop() {
+        if (depth > 0) depth--;
+    }
+
+    private boolean matches(byte[][] keys) {
+        if (stringLen > MAX_KEY) {
+            return false;
+        }
+        for (byte[] key : keys) {
+            if (key.length != stringLen) continue;
+            boolean same = true;
+            for (int i = 0; i < stringLen && same; i++) {
+                same = key[i] == string[i];
+            }
+            if (same) return true;
+        }
+        return false;
+    }
+
+    private static byte[][] keys(String... names) {
+        byte[][] keys = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = names[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,215 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary format of the traffic log written by {@link TrafficRecorder} and read by
+ * TrafficReplay (in the unit test sources). Plain Java, so the replay tool runs on any JVM.
+ * <p>
+ * Header: magic, version, start time (epoch ms) and the feature flags enabled when the file was
+ * opened. Then a sequence of tagged records:
+ * <ul>
+ *   <li>string: id and UTF value; hosts, paths, query shapes and rule keys are written once per
+ *   file and referenced by id afterwards</li>
+ *   <li>request: time since the previous request (ms), host, path and query shape ids, verdict,
+ *   rule id (0 = none) and time spent in the hook (ns)</li>
+ * </ul>
+ * Numbers are unsigned varints, so a repeated endpoint costs a handful of bytes.
+ */
+final class TrafficLog {
+
+    static final int MAGIC = 0x49455452; // "IETR"
+    static final int VERSION = 1;
+
+    // Pseudo-flag in the header: the network was metered when the file was opened
+    static final String METERED = "metered";
+
+    static final byte NO_MATCH = 0;
+    static final byte BLOCKED = 1;
+    static final byte EXEMPT = 2;
+
+    private static final int TAG_STRING = 1;
+    private static final int TAG_REQUEST = 2;
+
+    static final class Request {
+        String host;
+        String path;
+        String query; // shape: keys only, see queryShape
+        long timeMs;
+        byte verdict;
+        String rule;  // key of the matched rule, or null
+        long hookNanos;
+    }
+
+    /**
+     * Keeps the parameter names of a query and drops the values: "a=1&b=x" -> "a=&b=".
+     */
+    static String queryShape(String query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(query.length());
+        int start = 0;
+        while (start <= query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) end = query.length();
+            int equals = query.indexOf('=', start);
+            if (sb.length() > 0) sb.append('&');
+            if (equals >= 0 && equals < end) {
+                sb.append(query, start, equals + 1);
+            } else {
+                sb.append(query, start, end);
+            }
+            start = end + 1;
+        }
+        return sb.toString();
+    }
+
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private long lastTimeMs;
+
+        Writer(OutputStream stream, long startMs, List<String> flags) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(stream, 16 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(startMs);
+            writeVarint(flags.size());
+            for (String flag : flags) out.writeUTF(flag);
+            lastTimeMs = startMs;
+        }
+
+        void write(Request request) throws IOException {
+            int host = id(request.host);
+            int path = id(request.path);
+            int query = id(request.query);
+            int rule = request.rule != null ? id(request.rule) : 0;
+
+            out.writeByte(TAG_REQUEST);
+            writeVarint(Math.max(0, request.timeMs - lastTimeMs));
+            writeVarint(host);
+            writeVarint(path);
+            writeVarint(query);
+            out.writeByte(request.verdict);
+            writeVarint(rule);
+            writeVarint(Math.max(0, request.hookNanos));
+            lastTimeMs = Math.max(lastTimeMs, request.timeMs);
+        }
+
+        int size() {
+            return out.size();
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        // Ids start at 1; 0 means "none"
+        private int id(String value) throws IOException {
+            if (value == null) value = "";
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = ids.size() + 1;
+                ids.put(value, id);
+                out.writeByte(TAG_STRING);
+                writeVarint(id);
+                out.writeUTF(value);
+            }
+            return id;
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+    }
+
+    static final class Reader implements Closeable {
+        final long startMs;
+        final List<String> flags = new ArrayList<>();
+        private final DataInputStream in;
+        private final Map<Integer, String> strings = new HashMap<>();
+        private long timeMs;
+
+        Reader(InputStream stream) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(stream, 16 * 1024));
+            if (in.readInt() != MAGIC) throw new IOException("Not a traffic log");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported traffic log version " + version);
+            startMs = in.readLong();
+            long count = readVarint();
+            for (int i = 0; i < count; i++) flags.add(in.readUTF());
+            timeMs = startMs;
+        }
+
+        /**
+         * Returns the next request, or null at the end of the log (including a truncated tail).
+         */
+        Request next() throws IOException {
+            try {
+                while (true) {
+                    int tag = in.read();
+                    if (tag < 0) {
+                        return null;
+                    }
+                    if (tag == TAG_STRING) {
+                        int id = (int) readVarint();
+                        strings.put(id, in.readUTF());
+                    } else if (tag == TAG_REQUEST) {
+                        Request request = new Request();
+                        timeMs += readVarint();
+                        request.timeMs = timeMs;
+                        request.host = strings.get((int) readVarint());
+                        request.path = strings.get((int) readVarint());
+                        request.query = strings.get((int) readVarint());
+                        request.verdict = in.readByte();
+                        int rule = (int) readVarint();
+                        request.rule = rule != 0 ? strings.get(rule) : null;
+                        request.hookNanos = readVarint();
+                        return request;
+                    } else {
+                        throw new IOException("Corrupt traffic log (tag " + tag + ")");
+                    }
+                }
+            } catch (EOFException e) {
+                return null; // The app was killed mid-record
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Corrupt varint");
+        }
+    }
+}
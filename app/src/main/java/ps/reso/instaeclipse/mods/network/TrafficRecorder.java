@@ -0,0 +1,177 @@
+package ps.reso.instaeclipse.mods.network;
+
+import android.app.AndroidAppHelper;
+import android.content.Context;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.robv.android.xposed.XposedBridge;
+import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+/**
+ * Opt-in recorder of the requests seen by the Interceptor, for replaying them against rule
+ * changes with TrafficReplay, a desktop tool kept in the unit test sources.
+ * <p>
+ * The hook only fills in a small record and offers it to a bounded queue; a daemon thread writes
+ * the queue to files/instaeclipse/traffic/traffic.bin in the {@link TrafficLog} format. Query
+ * values are never recorded, only the parameter names. When the file reaches
+ * {@link #MAX_FILE_BYTES} it is rotated to traffic.1.bin, traffic.2.bin, ... and the oldest is
+ * deleted. If the writer falls behind, records are dropped rather than slowing down requests.
+ */
+public class TrafficRecorder {
+
+    private static final String LOG_DIR = "instaeclipse/traffic";
+    private static final String LOG_NAME = "traffic";
+    private static final int MAX_FILE_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_FILES = 3;
+    private static final int QUEUE_SIZE = 4096;
+
+    private static final BlockingQueue<TrafficLog.Request> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    public static final LongAdder recorded = new LongAdder();
+    public static final LongAdder dropped = new LongAdder();
+
+    private static volatile Thread writer;
+    private static volatile File logDir;
+
+    public static boolean isRecording() {
+        return FeatureFlags.snapshot().has(FlagSnapshot.RECORD_TRAFFIC);
+    }
+
+    /**
+     * Queues one request. {@code rule} is the matched rule, or null if nothing matched.
+     */
+    static void record(URI uri, String path, UriRule rule, long hookNanos) {
+        TrafficLog.Request request = new TrafficLog.Request();
+        request.host = uri.getHost();
+        request.path = path;
+        request.query = TrafficLog.queryShape(uri.getRawQuery());
+        request.timeMs = System.currentTimeMillis();
+        request.verdict = rule == null ? TrafficLog.NO_MATCH : rule.exempt ? TrafficLog.EXEMPT : TrafficLog.BLOCKED;
+        request.rule = rule != null ? rule.key() : null;
+        request.hookNanos = hookNanos;
+
+        if (!queue.offer(request)) {
+            dropped.increment();
+            return;
+        }
+        if (writer == null) {
+            startWriter();
+        }
+    }
+
+    /**
+     * The directory holding the logs, once the writer has started.
+     */
+    public static File logDir() {
+        return logDir;
+    }
+
+    public static String summary() {
+        File dir = logDir;
+        return "🎞️ Requests recorded: " + recorded.sum() + (dropped.sum() > 0 ? " (dropped " + dropped.sum() + ")" : "")
+                + (dir != null ? "\n📁 " + dir.getAbsolutePath() : "");
+    }
+
+    private static synchronized void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(TrafficRecorder::writeLoop, "InstaEclipse-Traffic");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static void writeLoop() {
+        TrafficLog.Writer out = null;
+        try {
+            Context context = AndroidAppHelper.currentApplication();
+            while (context == null) {
+                Thread.sleep(500);
+                context = AndroidAppHelper.currentApplication();
+            }
+            File dir = new File(context.getFilesDir(), LOG_DIR);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                XposedBridge.log("(InstaEclipse | TrafficRecorder): ❌ Cannot create " + dir);
+                return;
+            }
+            logDir = dir;
+
+            while (true) {
+                TrafficLog.Request request = queue.take();
+                if (out == null) {
+                    out = open(dir);
+                }
+                out.write(request);
+                recorded.increment();
+
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+                if (out.size() >= MAX_FILE_BYTES) {
+                    out.close();
+                    out = null;
+                    rotate(dir);
+                }
+            }
+        } catch (InterruptedException ignored) {
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse | TrafficRecorder): ❌ Recording stopped: " + t.getMessage());
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+
+    private static TrafficLog.Writer open(File dir) throws Exception {
+        File file = new File(dir, LOG_NAME + ".bin");
+        if (file.length() > 0) {
+            // Logs are not appendable (string ids are per file); keep the previous session
+            rotate(dir);
+        }
+        return new TrafficLog.Writer(new FileOutputStream(file), System.currentTimeMillis(), enabledFlags());
+    }
+
+    private static void rotate(File dir) {
+        File oldest = new File(dir, LOG_NAME + "." + (MAX_FILES - 1) + ".bin");
+        if (oldest.exists() && !oldest.delete()) {
+            XposedBridge.log("(InstaEclipse | TrafficRecorder): ⚠️ Could not delete " + oldest.getName());
+        }
+        for (int i = MAX_FILES - 2; i >= 0; i--) {
+            File from = new File(dir, i == 0 ? LOG_NAME + ".bin" : LOG_NAME + "." + i + ".bin");
+            if (from.exists() && !from.renameTo(new File(dir, LOG_NAME + "." + (i + 1) + ".bin"))) {
+                XposedBridge.log("(InstaEclipse | TrafficRecorder): ⚠️ Could not rotate " + from.getName());
+            }
+        }
+    }
+
+    // The boolean FeatureFlags that were on, so a replay can rebuild the same rules
+    private static List<String> enabledFlags() {
+        List<String> flags = new ArrayList<>();
+        for (Field field : FeatureFlags.class.getDeclaredFields()) {
+            try {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == boolean.class && field.getBoolean(null)) {
+                    flags.add(field.getName());
+                }
+            } catch (IllegalAccessException ignored) {
+            }
+        }
+        if (PrefetchPolicy.limitsMetered(FeatureFlags.snapshot())) {
+            flags.add(TrafficLog.METERED);
+        }
+        return flags;
+    }
+}
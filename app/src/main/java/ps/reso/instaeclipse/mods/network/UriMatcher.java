@@ -0,0 +1,347 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, compiled form of a rule list.
+ * <p>
+ * Every pattern of one target (host, path, query) goes into a single Aho-Corasick automaton,
+ * flattened into a DFA over the characters the patterns use. Classifying a request is one pass
+ * over each string that has patterns: each hit sets the bit of every rule part it satisfies
+ * (prefix, suffix, substring or exact match, judged from the hit position), and the first rule
+ * whose parts are all set wins. Nothing is allocated per request.
+ * <p>
+ * Verdicts are memoized per host and normalized path in a {@link VerdictCache} owned by this
+ * matcher. When a rule that tests the query could still match, only the part satisfaction of
+ * host and path is cached and the query is scanned on every request.
+ */
+public final class UriMatcher {
+
+    public static final int NO_MATCH = -1;
+
+    private static final int MAX_PARTS = Long.SIZE;
+    private static final int CACHE_SETS = 256; // x4 ways
+    private static final int QUERY_DEPENDENT = Integer.MIN_VALUE;
+    private static final int[] NONE = new int[0];
+
+    public final long flagsKey;
+    private final UriRule[] rules;
+    private final long[] ruleMasks;
+    private final long queryParts;
+    private final UriRule.Match[] partMatches;
+    private final Automaton host;
+    private final Automaton path;
+    private final Automaton query;
+    private final VerdictCache cache;
+
+    private UriMatcher(long flagsKey, UriRule[] rules, long[] ruleMasks, long queryParts, UriRule.Match[] partMatches,
+                       Automaton host, Automaton path, Automaton query, boolean normalizeIds) {
+        this.flagsKey = flagsKey;
+        this.rules = rules;
+        this.ruleMasks = ruleMasks;
+        this.queryParts = queryParts;
+        this.partMatches = partMatches;
+        this.host = host;
+        this.path = path;
+        this.query = query;
+        this.cache = new VerdictCache(CACHE_SETS, normalizeIds);
+    }
+
+    /**
+     * Compiles {@code ruleList}. Exempt rules are moved ahead of block rules so they always win.
+     */
+    public static UriMatcher compile(List<UriRule> ruleList, long flagsKey) {
+        List<UriRule> ordered = new ArrayList<>();
+        for (UriRule rule : ruleList) {
+            if (rule.exempt) ordered.add(rule);
+        }
+        for (UriRule rule : ruleList) {
+            if (!rule.exempt) ordered.add(rule);
+        }
+
+        List<UriRule.Match> matches = new ArrayList<>();
+        long[] masks = new long[ordered.size()];
+        long queryParts = 0;
+        boolean normalizeIds = true;
+        // target -> pattern -> parts using it
+        Map<UriRule.Target, Map<String, List<Integer>>> patterns = new HashMap<>();
+
+        for (int r = 0; r < ordered.size(); r++) {
+            UriRule rule = ordered.get(r);
+            rule.ruleCounters = InterceptStats.forRule(rule.key());
+            rule.categoryCounters = InterceptStats.forCategory(rule.category);
+            for (UriRule.Part part : rule.parts) {
+                int bit = matches.size();
+                if (bit >= MAX_PARTS) {
+                    throw new IllegalStateException("Too many rule parts (max " + MAX_PARTS + ")");
+                }
+                matches.add(part.match);
+                masks[r] |= 1L << bit;
+                if (part.target == UriRule.Target.QUERY) {
+                    queryParts |= 1L << bit;
+                } else if (part.target == UriRule.Target.PATH && touchesIdSegment(part.pattern)) {
+                    normalizeIds = false;
+                }
+                patterns.computeIfAbsent(part.target, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(part.pattern, k -> new ArrayList<>())
+                        .add(bit);
+            }
+        }
+
+        return new UriMatcher(flagsKey, ordered.toArray(new UriRule[0]), masks, queryParts, matches.toArray(new UriRule.Match[0]),
+                Automaton.build(patterns.get(UriRule.Target.HOST)),
+                Automaton.build(patterns.get(UriRule.Target.PATH)),
+                Automaton.build(patterns.get(UriRule.Target.QUERY)),
+                normalizeIds);
+    }
+
+    // A pattern can only match into an all-digit segment if it starts with a digit or has
+    // "/<digit>"; otherwise collapsing such segments to "#" cannot change any match
+    private static boolean touchesIdSegment(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c >= '0' && c <= '9' && (i == 0 || pattern.charAt(i - 1) == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    public UriRule rule(int index) {
+        return rules[index];
+    }
+
+    /**
+     * Returns the index of the first matching rule (exempt rules come first, see
+     * {@link #rule}), or {@link #NO_MATCH}. {@code decodedPath} must be {@code uri.getPath()}.
+     * Repeated endpoints are answered from the verdict cache.
+     */
+    public int classify(URI uri, String decodedPath) {
+        if (rules.length == 0) {
+            return NO_MATCH;
+        }
+
+        String hostName = uri.getHost();
+        VerdictCache.Entry cached = cache.get(hostName, decodedPath);
+        if (cached != null) {
+            return cached.verdict != QUERY_DEPENDENT ? cached.verdict : verdict(scanQuery(uri, cached.seen));
+        }
+
+        long seen = scanHostAndPath(hostName, decodedPath);
+        if (dependsOnQuery(seen)) {
+            cache.put(hostName, decodedPath, seen, QUERY_DEPENDENT);
+            return verdict(scanQuery(uri, seen));
+        }
+
+        int verdict = verdict(seen);
+        cache.put(hostName, decodedPath, seen, verdict);
+        return verdict;
+    }
+
+    /**
+     * Same as {@link #classify} but always evaluates the rules, bypassing the cache.
+     */
+    public int evaluate(URI uri, String decodedPath) {
+        if (rules.length == 0) {
+            return NO_MATCH;
+        }
+        return verdict(scanQuery(uri, scanHostAndPath(uri.getHost(), decodedPath)));
+    }
+
+    private long scanHostAndPath(String hostName, String decodedPath) {
+        long seen = 0;
+        if (path != null) {
+            seen = scan(path, decodedPath, seen);
+        }
+        if (host != null && hostName != null) {
+            seen = scan(host, hostName, seen);
+        }
+        return seen;
+    }
+
+    private long scanQuery(URI uri, long seen) {
+        if (query != null) {
+            String queryString = uri.getQuery();
+            if (queryString != null) seen = scan(query, queryString, seen);
+        }
+        return seen;
+    }
+
+    // True if some rule testing the query has every other part satisfied
+    private boolean dependsOnQuery(long seen) {
+        if (queryParts == 0) {
+            return false;
+        }
+        for (long mask : ruleMasks) {
+            if ((mask & queryParts) != 0 && ((seen | queryParts) & mask) == mask) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int verdict(long seen) {
+        if (seen == 0) {
+            return NO_MATCH;
+        }
+        for (int r = 0; r < rules.length; r++) {
+            if ((seen & ruleMasks[r]) == ruleMasks[r]) {
+                return r;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    private long scan(Automaton automaton, String text, long seen) {
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            state = automaton.next[state * automaton.classes + (c < 128 ? automaton.charClass[c] : 0)];
+
+            int[] hits = automaton.output[state];
+            for (int h = 0; h < hits.length; h++) {
+                int pattern = hits[h];
+                int start = i - automaton.lengths[pattern] + 1;
+                boolean atStart = start == 0;
+                boolean atEnd = i == length - 1;
+
+                int[] parts = automaton.parts[pattern];
+                for (int p = 0; p < parts.length; p++) {
+                    int bit = parts[p];
+                    UriRule.Match match = partMatches[bit];
+                    if (match == UriRule.Match.CONTAINS
+                            || (match == UriRule.Match.PREFIX && atStart)
+                            || (match == UriRule.Match.SUFFIX && atEnd)
+                            || (match == UriRule.Match.EQUALS && atStart && atEnd)) {
+                        seen |= 1L << bit;
+                    }
+                }
+            }
+        }
+        return seen;
+    }
+
+    // Aho-Corasick automaton flattened into a DFA; state 0 is the root
+    private static final class Automaton {
+        final int[] charClass = new int[128]; // 0 = character not used by any pattern
+        int classes;
+        int[] next;          // state * classes + charClass -> state
+        int[][] output;      // state -> patterns ending here
+        int[] lengths;       // pattern -> length
+        int[][] parts;       // pattern -> rule part bits
+
+        static Automaton build(Map<String, List<Integer>> patterns) {
+            if (patterns == null || patterns.isEmpty()) {
+                return null;
+            }
+
+            Automaton automaton = new Automaton();
+            automaton.classes = 1;
+            for (String pattern : patterns.keySet()) {
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = pattern.charAt(i);
+                    if (c >= 128) {
+                        throw new IllegalArgumentException("Non-ASCII pattern: " + pattern);
+                    }
+                    if (automaton.charClass[c] == 0) {
+                        automaton.charClass[c] = automaton.classes++;
+                    }
+                }
+            }
+            int classes = automaton.classes;
+
+            // Trie
+            List<int[]> children = new ArrayList<>();
+            List<List<Integer>> ends = new ArrayList<>();
+            children.add(newRow(classes));
+            ends.add(new ArrayList<>());
+
+            automaton.lengths = new int[patterns.size()];
+            automaton.parts = new int[patterns.size()][];
+            int id = 0;
+            for (Map.Entry<String, List<Integer>> entry : patterns.entrySet()) {
+                String pattern = entry.getKey();
+                int state = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    int cls = automaton.charClass[pattern.charAt(i)];
+                    if (children.get(state)[cls] < 0) {
+                        children.get(state)[cls] = children.size();
+                        children.add(newRow(classes));
+                        ends.add(new ArrayList<>());
+                    }
+                    state = children.get(state)[cls];
+                }
+                ends.get(state).add(id);
+                automaton.lengths[id] = pattern.length();
+                automaton.parts[id] = toArray(entry.getValue());
+                id++;
+            }
+
+            // Failure links in BFS order, folded into the transition table
+            int states = children.size();
+            int[] fail = new int[states];
+            int[] next = new int[states * classes];
+            int[][] output = new int[states][];
+            output[0] = NONE;
+
+            int[] queue = new int[states];
+            int head = 0, tail = 0;
+            for (int c = 0; c < classes; c++) {
+                int child = children.get(0)[c];
+                if (child > 0) {
+                    next[c] = child;
+                    fail[child] = 0;
+                    queue[tail++] = child;
+                }
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                List<Integer> merged = new ArrayList<>(ends.get(state));
+                for (int pattern : output[fail[state]]) merged.add(pattern);
+                output[state] = merged.isEmpty() ? NONE : toArray(merged);
+
+                for (int c = 0; c < classes; c++) {
+                    int child = children.get(state)[c];
+                    if (child > 0) {
+                        fail[child] = next[fail[state] * classes + c];
+                        next[state * classes + c] = child;
+                        queue[tail++] = child;
+                    } else {
+                        next[state * classes + c] = next[fail[state] * classes + c];
+                    }
+                }
+            }
+            // Class 0 (unused characters) always returns to the root
+            for (int s = 0; s < states; s++) {
+                next[s * classes] = 0;
+            }
+
+            automaton.next = next;
+            automaton.output = output;
+            return automaton;
+        }
+
+        private static int[] newRow(int classes) {
+            int[] row = new int[classes];
+            Arrays.fill(row, -1);
+            return row;
+        }
+
+        private static int[] toArray(List<Integer> values) {
+            int[] array = new int[values.size()];
+            for (int i = 0; i < array.length; i++) array[i] = values.get(i);
+            return array;
+        }
+    }
+}
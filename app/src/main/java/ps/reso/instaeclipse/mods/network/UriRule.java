@@ -0,0 +1,117 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One Interceptor rule: a request matches when every part matches. Parts test the host, the
+ * decoded path or the decoded query with a prefix, suffix, substring or exact comparison.
+ * <p>
+ * Block rules divert the request; exempt rules let it through untouched even if a block rule
+ * also matches. Rules are compiled by {@link UriMatcher}.
+ */
+public final class UriRule {
+
+    // Categories
+    public static final String GHOST = "ghost";
+    public static final String DISTRACTION = "distraction";
+    public static final String ADS = "ads";
+    public static final String ANALYTICS = "analytics";
+    public static final String PREFETCH = "prefetch";
+    public static final String USER = "user";
+
+    public enum Target {HOST, PATH, QUERY}
+
+    public enum Match {PREFIX, SUFFIX, CONTAINS, EQUALS}
+
+    static final class Part {
+        final Target target;
+        final Match match;
+        final String pattern;
+
+        Part(Target target, Match match, String pattern) {
+            this.target = target;
+            this.match = match;
+            this.pattern = pattern;
+        }
+
+        @Override
+        public String toString() {
+            String op = match == Match.PREFIX ? "^=" : match == Match.SUFFIX ? "$=" : match == Match.CONTAINS ? "*=" : "=";
+            return target.name().toLowerCase(Locale.ROOT) + op + pattern;
+        }
+    }
+
+    public final String name;
+    public final String category;
+    public final boolean exempt;
+    final List<Part> parts = new ArrayList<>();
+    // Assigned by UriMatcher.compile
+    InterceptStats.Counters ruleCounters;
+    InterceptStats.Counters categoryCounters;
+
+    private UriRule(String name, String category, boolean exempt) {
+        this.name = name;
+        this.category = category;
+        this.exempt = exempt;
+    }
+
+    public static UriRule block(String name, String category) {
+        return new UriRule(name, category, false);
+    }
+
+    public static UriRule exempt(String name, String category) {
+        return new UriRule(name, category, true);
+    }
+
+    public UriRule pathPrefix(String pattern) {
+        return part(Target.PATH, Match.PREFIX, pattern);
+    }
+
+    public UriRule pathSuffix(String pattern) {
+        return part(Target.PATH, Match.SUFFIX, pattern);
+    }
+
+    public UriRule pathContains(String pattern) {
+        return part(Target.PATH, Match.CONTAINS, pattern);
+    }
+
+    public UriRule pathEquals(String pattern) {
+        return part(Target.PATH, Match.EQUALS, pattern);
+    }
+
+    public UriRule hostContains(String pattern) {
+        return part(Target.HOST, Match.CONTAINS, pattern);
+    }
+
+    public UriRule queryContains(String pattern) {
+        return part(Target.QUERY, Match.CONTAINS, pattern);
+    }
+
+    public UriRule queryPrefix(String pattern) {
+        return part(Target.QUERY, Match.PREFIX, pattern);
+    }
+
+    private UriRule part(Target target, Match match, String pattern) {
+        parts.add(new Part(target, match, pattern));
+        return this;
+    }
+
+    /**
+     * Stable description used as the rule's stats key, e.g. "AdBlock [path*=/async_ads/]".
+     */
+    public String key() {
+        StringBuilder sb = new StringBuilder(name).append(" [");
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) sb.append(" & ");
+            sb.append(parts.get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    @Override
+    public String toString() {
+        return key();
+    }
+}
@@ -0,0 +1,126 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+/**
+ * The Interceptor's block rules as data, built from the current {@link FeatureFlags}.
+ * <p>
+ * {@link #current()} keeps one compiled {@link UriMatcher} and recompiles it only when one of
+ * the flags below changes. Rules are built from a {@link FlagSnapshot}, so the list and the key
+ * it is cached under always agree.
+ */
+public class UriRules {
+
+    private static volatile UriMatcher compiled;
+
+    // The flags that change the rule list
+    private static final long RULE_FLAGS = FlagSnapshot.GHOST_SCREENSHOT | FlagSnapshot.GHOST_VIEW_ONCE
+            | FlagSnapshot.GHOST_STORY | FlagSnapshot.GHOST_LIVE | FlagSnapshot.DISABLE_STORIES
+            | FlagSnapshot.DISABLE_FEED | FlagSnapshot.DISABLE_REELS | FlagSnapshot.DISABLE_REELS_EXCEPT_DM
+            | FlagSnapshot.DISABLE_EXPLORE | FlagSnapshot.DISABLE_COMMENTS | FlagSnapshot.AD_BLOCK
+            | FlagSnapshot.ANALYTICS_BLOCKED;
+    // Not a flag: set while prefetches are limited because the network is metered
+    private static final long METERED_KEY = 1L << 63;
+
+    /**
+     * Returns the matcher for the current flags, recompiling it if they changed.
+     */
+    public static UriMatcher current() {
+        return current(FeatureFlags.snapshot());
+    }
+
+    /**
+     * Returns the matcher for {@code flags}, recompiling it if they changed.
+     */
+    static UriMatcher current(FlagSnapshot flags) {
+        long key = flagsKey(flags);
+        UriMatcher matcher = compiled;
+        if (matcher == null || matcher.flagsKey != key) {
+            matcher = UriMatcher.compile(fromFlags(flags), key);
+            compiled = matcher;
+        }
+        return matcher;
+    }
+
+    static long flagsKey(FlagSnapshot flags) {
+        return (flags.bits & RULE_FLAGS) | (PrefetchPolicy.limitsMetered(flags) ? METERED_KEY : 0);
+    }
+
+    static List<UriRule> fromFlags(FlagSnapshot flags) {
+        List<UriRule> rules = new ArrayList<>();
+
+        // Ghost Mode URIs
+        if (flags.has(FlagSnapshot.GHOST_SCREENSHOT)) {
+            rules.add(UriRule.block("GhostScreenshot", UriRule.GHOST).pathSuffix("/screenshot/"));
+            rules.add(UriRule.block("GhostScreenshot", UriRule.GHOST).pathSuffix("/ephemeral_screenshot/"));
+        }
+        if (flags.has(FlagSnapshot.GHOST_VIEW_ONCE)) {
+            rules.add(UriRule.block("GhostViewOnce", UriRule.GHOST).pathSuffix("/item_replayed/"));
+            rules.add(UriRule.block("GhostViewOnce", UriRule.GHOST).pathContains("/direct").pathSuffix("/item_seen/"));
+        }
+        if (flags.has(FlagSnapshot.GHOST_STORY)) {
+            rules.add(UriRule.block("GhostStory", UriRule.GHOST).pathContains("/api/v2/media/seen/"));
+        }
+        if (flags.has(FlagSnapshot.GHOST_LIVE)) {
+            rules.add(UriRule.block("GhostLive", UriRule.GHOST).pathContains("/heartbeat_and_get_viewer_count/"));
+        }
+
+        // Distraction Free
+        if (flags.has(FlagSnapshot.DISABLE_STORIES)) {
+            rules.add(UriRule.block("DisableStories", UriRule.DISTRACTION).pathContains("/feed/reels_tray/"));
+            rules.add(UriRule.block("DisableStories", UriRule.DISTRACTION).pathContains("feed/get_latest_reel_media/"));
+            rules.add(UriRule.block("DisableStories", UriRule.DISTRACTION).pathContains("direct_v2/pending_inbox/?visual_message"));
+            rules.add(UriRule.block("DisableStories", UriRule.DISTRACTION).pathContains("stories/hallpass/"));
+            rules.add(UriRule.block("DisableStories", UriRule.DISTRACTION).pathContains("/api/v1/feed/reels_media_stream/"));
+        }
+        if (flags.has(FlagSnapshot.DISABLE_FEED)) {
+            rules.add(UriRule.block("DisableFeed", UriRule.DISTRACTION).pathSuffix("/feed/timeline/"));
+        }
+        if (flags.has(FlagSnapshot.DISABLE_REELS) && !flags.has(FlagSnapshot.DISABLE_REELS_EXCEPT_DM)) {
+            rules.add(UriRule.block("DisableReels", UriRule.DISTRACTION).pathSuffix("/qp/batch_fetch/"));
+            // "clips" and "mixed_media" also cover api/v1/clips and mixed_media/discover/stream/
+            rules.add(UriRule.block("DisableReels", UriRule.DISTRACTION).pathContains("clips"));
+            rules.add(UriRule.block("DisableReels", UriRule.DISTRACTION).pathContains("mixed_media"));
+        }
+        if (flags.has(FlagSnapshot.DISABLE_REELS_EXCEPT_DM)) {
+            // Direct requests pass untouched, whatever other rule matches them
+            rules.add(UriRule.exempt("DisableReelsExceptDM", UriRule.DISTRACTION).pathPrefix("/api/v1/direct_v2/"));
+            rules.add(UriRule.block("DisableReelsExceptDM", UriRule.DISTRACTION).pathPrefix("/api/v1/clips/").queryContains("next_media_ids="));
+            rules.add(UriRule.block("DisableReelsExceptDM", UriRule.DISTRACTION).pathPrefix("/api/v1/clips/").queryContains("max_id="));
+            rules.add(UriRule.block("DisableReelsExceptDM", UriRule.DISTRACTION).pathContains("/clips/discover/"));
+            rules.add(UriRule.block("DisableReelsExceptDM", UriRule.DISTRACTION).pathContains("/mixed_media/discover/stream/"));
+        }
+        if (flags.has(FlagSnapshot.DISABLE_EXPLORE)) {
+            // "/discover/topical_explore" also covers topical_explore_stream
+            rules.add(UriRule.block("DisableExplore", UriRule.DISTRACTION).pathContains("/discover/topical_explore"));
+            rules.add(UriRule.block("DisableExplore", UriRule.DISTRACTION).hostContains("i.instagram.com").pathContains("/api/v1/fbsearch/top_serp/"));
+        }
+        if (flags.has(FlagSnapshot.DISABLE_COMMENTS)) {
+            rules.add(UriRule.block("DisableComments", UriRule.DISTRACTION).pathContains("/api/v1/media/").pathContains("comments/"));
+        }
+
+        // Prefetches for disabled surfaces, or all of them on a metered network
+        PrefetchPolicy.addRules(rules, flags);
+
+        // Ads
+        if (flags.has(FlagSnapshot.AD_BLOCK)) {
+            rules.add(UriRule.block("AdBlock", UriRule.ADS).pathContains("profile_ads/get_profile_ads/"));
+            rules.add(UriRule.block("AdBlock", UriRule.ADS).pathContains("/async_ads/"));
+            rules.add(UriRule.block("AdBlock", UriRule.ADS).pathContains("/feed/injected_reels_media/"));
+            rules.add(UriRule.block("AdBlock", UriRule.ADS).pathEquals("/api/v1/ads/graphql/"));
+        }
+
+        // Analytics
+        if (flags.has(FlagSnapshot.ANALYTICS_BLOCKED)) {
+            rules.add(UriRule.block("Analytics", UriRule.ANALYTICS).hostContains("graph.instagram.com"));
+            rules.add(UriRule.block("Analytics", UriRule.ANALYTICS).hostContains("graph.facebook.com"));
+            rules.add(UriRule.block("Analytics", UriRule.ANALYTICS).pathContains("/logging_client_events"));
+        }
+
+        return rules;
+    }
+}
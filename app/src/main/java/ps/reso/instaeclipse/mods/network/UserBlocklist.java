@@ -0,0 +1,196 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import de.robv.android.xposed.XSharedPreferences;
+import de.robv.android.xposed.XposedBridge;
+import ps.reso.instaeclipse.utils.core.CommonUtils;
+
+/**
+ * Block rules written by the user, imported in the module app and read by the Interceptor.
+ * <p>
+ * The rules file has one rule per line, {@code <type> <pattern>}, with '#' starting a comment:
+ * <pre>
+ * host   graph.example.com   # host contains
+ * prefix /api/v1/some/       # path starts with
+ * suffix /log/               # path ends with
+ * query  ad_token            # query has this key
+ * </pre>
+ * The module app stores the text in world-readable module preferences. A daemon thread polls
+ * that file; when it changes, the rules are parsed and compiled in the background and the new
+ * matchers replace the old ones with a single volatile write. The request path only reads that
+ * field, so it never waits for a reload. If a reload fails (the file is unreadable, or was read
+ * while being rewritten) the previous rules stay in place and the next poll tries again. Until a
+ * blocklist is imported, the file is checked only once a minute.
+ */
+public class UserBlocklist {
+
+    public static final String PREFS_NAME = "instaeclipse_blocklist";
+    public static final String KEY_RULES = "rules";
+    private static final long POLL_INTERVAL_MS = 3000;
+    private static final long IDLE_POLL_INTERVAL_MS = 60_000;
+    // UriMatcher tracks rule parts in one long; larger lists are split across matchers
+    private static final int PARTS_PER_MATCHER = 64;
+    private static final UriMatcher[] NONE = new UriMatcher[0];
+
+    private static volatile UriMatcher[] compiled;
+    private static XSharedPreferences prefs;
+    private static Thread watcher;
+    // The last reload failed; retried on the next poll even if the file has not changed since
+    private static volatile boolean retry;
+
+    /**
+     * The compiled user rules, loaded on first use; empty if there are none.
+     */
+    static UriMatcher[] current() {
+        UriMatcher[] matchers = compiled;
+        return matchers != null ? matchers : load();
+    }
+
+    /**
+     * Starts watching the rules file for changes.
+     */
+    static synchronized void watch() {
+        if (watcher != null) {
+            return;
+        }
+        current();
+        watcher = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(prefs.getFile().exists() ? POLL_INTERVAL_MS : IDLE_POLL_INTERVAL_MS);
+                    if (retry || prefs.hasFileChanged()) {
+                        reload();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Throwable t) {
+                    XposedBridge.log("(InstaEclipse | UserBlocklist): ❌ Watch failed: " + t.getMessage());
+                }
+            }
+        }, "InstaEclipse-Blocklist");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private static synchronized UriMatcher[] load() {
+        if (compiled == null) {
+            prefs = new XSharedPreferences(CommonUtils.MY_PACKAGE_NAME, PREFS_NAME);
+            reload();
+        }
+        return compiled;
+    }
+
+    private static synchronized void reload() {
+        try {
+            prefs.reload();
+            File file = prefs.getFile();
+            if (!file.exists()) {
+                // Nothing imported
+                compiled = NONE;
+                retry = false;
+                return;
+            }
+            // The module app always stores the key, even for an empty list
+            String text = file.canRead() ? prefs.getString(KEY_RULES, null) : null;
+            if (text == null) {
+                throw new IllegalStateException(file.canRead() ? "no rules in " + file : "cannot read " + file);
+            }
+
+            List<String> errors = new ArrayList<>();
+            List<UriRule> rules = parse(text, errors);
+            for (String error : errors) {
+                XposedBridge.log("(InstaEclipse | UserBlocklist): ⚠️ " + error);
+            }
+            compiled = compile(rules);
+            retry = false;
+            XposedBridge.log("(InstaEclipse | UserBlocklist): ✅ Loaded " + rules.size() + " rules");
+        } catch (Throwable t) {
+            if (!retry) {
+                XposedBridge.log("(InstaEclipse | UserBlocklist): ❌ Failed to load rules, keeping the previous ones: " + t.getMessage());
+            }
+            retry = true;
+            if (compiled == null) {
+                compiled = NONE;
+            }
+        }
+    }
+
+    /**
+     * Parses a rules file. Lines that cannot be parsed are skipped and described in {@code errors}.
+     */
+    public static List<UriRule> parse(String text, List<String> errors) {
+        List<UriRule> rules = new ArrayList<>();
+        String[] lines = text.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String[] fields = line.split("\\s+");
+            if (fields.length != 2) {
+                errors.add("Line " + (i + 1) + ": expected '<type> <pattern>'");
+                continue;
+            }
+            String type = fields[0].toLowerCase(Locale.ROOT);
+            String pattern = fields[1];
+            if (!isAscii(pattern)) {
+                errors.add("Line " + (i + 1) + ": patterns must be ASCII");
+                continue;
+            }
+
+            switch (type) {
+                case "host":
+                    rules.add(UriRule.block("User", UriRule.USER).hostContains(pattern.toLowerCase(Locale.ROOT)));
+                    break;
+                case "prefix":
+                    rules.add(UriRule.block("User", UriRule.USER).pathPrefix(pattern));
+                    break;
+                case "suffix":
+                    rules.add(UriRule.block("User", UriRule.USER).pathSuffix(pattern));
+                    break;
+                case "query":
+                    // The key is either the first parameter or follows a '&'
+                    rules.add(UriRule.block("User", UriRule.USER).queryPrefix(pattern + "="));
+                    rules.add(UriRule.block("User", UriRule.USER).queryContains("&" + pattern + "="));
+                    break;
+                default:
+                    errors.add("Line " + (i + 1) + ": unknown rule type '" + fields[0] + "'");
+            }
+        }
+        return rules;
+    }
+
+    static UriMatcher[] compile(List<UriRule> rules) {
+        List<UriMatcher> matchers = new ArrayList<>();
+        List<UriRule> chunk = new ArrayList<>();
+        int parts = 0;
+        for (UriRule rule : rules) {
+            if (parts + rule.parts.size() > PARTS_PER_MATCHER) {
+                matchers.add(UriMatcher.compile(chunk, 0));
+                chunk = new ArrayList<>();
+                parts = 0;
+            }
+            chunk.add(rule);
+            parts += rule.parts.size();
+        }
+        if (!chunk.isEmpty()) {
+            matchers.add(UriMatcher.compile(chunk, 0));
+        }
+        return matchers.toArray(NONE);
+    }
+
+    private static boolean isAscii(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) >= 128) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,164 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free memo of {@link UriMatcher} results keyed by host and normalized path.
+ * <p>
+ * Normalization collapses all-digit path segments (user, media and thread IDs) into "#" so
+ * every request of the same endpoint shape shares one entry. It is only enabled when no path
+ * pattern could match across such a segment, see {@link UriMatcher}. The cache is 4-way set
+ * associative: each key hashes to a set of four slots and a miss replaces the least recently
+ * used slot in that set. Lookups hash and compare the key in place, so hits allocate nothing.
+ * <p>
+ * Each compiled matcher owns its cache, so swapping the matcher on a flag change also drops
+ * every cached verdict at once.
+ */
+final class VerdictCache {
+
+    private static final int WAYS = 4;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int setMask;
+    private final boolean normalizeIds;
+    // Racy on purpose: recency only needs to be roughly right
+    private int clock;
+
+    static final class Entry {
+        final String host;
+        final String path; // normalized
+        final int hash;
+        final long seen;   // rule parts satisfied by host and path
+        final int verdict;
+        int lastUsed;
+
+        Entry(String host, String path, int hash, long seen, int verdict, int lastUsed) {
+            this.host = host;
+            this.path = path;
+            this.hash = hash;
+            this.seen = seen;
+            this.verdict = verdict;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    VerdictCache(int sets, boolean normalizeIds) {
+        this.slots = new AtomicReferenceArray<>(sets * WAYS);
+        this.setMask = sets - 1;
+        this.normalizeIds = normalizeIds;
+    }
+
+    Entry get(String host, String path) {
+        int hash = hash(host, path);
+        int base = (hash & setMask) * WAYS;
+        for (int i = 0; i < WAYS; i++) {
+            Entry entry = slots.get(base + i);
+            if (entry != null && entry.hash == hash && sameHost(entry.host, host) && samePath(entry.path, path)) {
+                entry.lastUsed = ++clock;
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    void put(String host, String path, long seen, int verdict) {
+        int hash = hash(host, path);
+        int base = (hash & setMask) * WAYS;
+
+        int victim = base;
+        int oldest = Integer.MAX_VALUE;
+        for (int i = 0; i < WAYS; i++) {
+            Entry entry = slots.get(base + i);
+            if (entry == null) {
+                victim = base + i;
+                break;
+            }
+            if (entry.lastUsed < oldest) {
+                oldest = entry.lastUsed;
+                victim = base + i;
+            }
+        }
+        slots.set(victim, new Entry(host, normalize(path), hash, seen, verdict, ++clock));
+    }
+
+    private int hash(String host, String path) {
+        int hash = host != null ? host.hashCode() : 0;
+        int length = path.length();
+        int i = 0;
+        while (i < length) {
+            int end = segmentEnd(path, i);
+            if (normalizeIds && isNumeric(path, i, end)) {
+                hash = 31 * hash + '#';
+            } else {
+                for (int k = i; k < end; k++) hash = 31 * hash + path.charAt(k);
+            }
+            if (end < length) hash = 31 * hash + '/';
+            i = end + 1;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    // Compares a stored normalized path with a raw one without building the normalized form
+    private boolean samePath(String normalized, String path) {
+        int length = path.length();
+        int j = 0;
+        int i = 0;
+        while (i < length) {
+            int end = segmentEnd(path, i);
+            if (normalizeIds && isNumeric(path, i, end)) {
+                if (j >= normalized.length() || normalized.charAt(j) != '#') return false;
+                j++;
+            } else {
+                int segment = end - i;
+                if (!normalized.regionMatches(j, path, i, segment)) return false;
+                j += segment;
+            }
+            if (end < length) {
+                if (j >= normalized.length() || normalized.charAt(j) != '/') return false;
+                j++;
+            }
+            i = end + 1;
+        }
+        return j == normalized.length();
+    }
+
+    private String normalize(String path) {
+        if (!normalizeIds) {
+            return path;
+        }
+        StringBuilder sb = new StringBuilder(path.length());
+        int length = path.length();
+        int i = 0;
+        while (i < length) {
+            int end = segmentEnd(path, i);
+            if (isNumeric(path, i, end)) {
+                sb.append('#');
+            } else {
+                sb.append(path, i, end);
+            }
+            if (end < length) sb.append('/');
+            i = end + 1;
+        }
+        return sb.toString();
+    }
+
+    private static boolean sameHost(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int slash = path.indexOf('/', start);
+        return slash < 0 ? path.length() : slash;
+    }
+
+    private static boolean isNumeric(String path, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -11,20 +11,19 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Toast;
 
-import java.util.Map;
-
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import de.robv.android.xposed.XposedHelpers;
-import ps.reso.instaeclipse.Xposed.Module;
 import ps.reso.instaeclipse.mods.devops.config.ConfigManager;
-import ps.reso.instaeclipse.mods.ui.utils.BottomSheetHookUtil;
 import ps.reso.instaeclipse.mods.ui.utils.VibrationUtil;
 import ps.reso.instaeclipse.utils.dialog.DialogUtils;
+import ps.reso.instaeclipse.utils.feature.Feature;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
 import ps.reso.instaeclipse.utils.ghost.GhostModeUtils;
 import ps.reso.instaeclipse.utils.toast.CustomToast;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class UIHookManager {
 
@@ -73,7 +72,8 @@ public class UIHookManager {
                 return true;
             }
 
-            FeatureFlags.isGhostSeen = false;
+            // Only this process, and never saved
+            FeatureFlags.suspend(FlagSnapshot.GHOST_SEEN);
 
             activity.getWindow().getDecorView().post(() -> {
                 try {
@@ -89,7 +89,7 @@ public class UIHookManager {
                         new Handler(Looper.getMainLooper()).postDelayed(() -> {
                             messageList.scrollBy(0, 100); // scroll back down
 
-                            FeatureFlags.isGhostSeen = true;
+                            FeatureFlags.resume(FlagSnapshot.GHOST_SEEN);
                             Toast.makeText(activity, "✅ Message was marked as read", Toast.LENGTH_SHORT).show();
 
                         }, 300);
@@ -98,9 +98,12 @@ public class UIHookManager {
                     } else {
                         XposedBridge.log("⚠️ message_list not a ViewGroup or not found — fallback to reset flag");
 
-                        new Handler(Looper.getMainLooper()).postDelayed(() -> FeatureFlags.isGhostSeen = true, 300);
+                        new Handler(Looper.getMainLooper()).postDelayed(() -> {
+                            FeatureFlags.resume(FlagSnapshot.GHOST_SEEN);
+                        }, 300);
                     }
                 } catch (Exception e) {
+                    FeatureFlags.resume(FlagSnapshot.GHOST_SEEN);
                     XposedBridge.log("❌ Exception in scroll logic: " + Log.getStackTraceString(e));
                 }
             });
@@ -123,6 +126,56 @@ public class UIHookManager {
         }
     }
 
+    /**
+     * The "InstaEclipse Loaded" toast. While background discovery is still running it listens to
+     * {@link FeatureStatusTracker} and shows once no enabled feature is pending, or after
+     * {@link #TIMEOUT_MS} with the stragglers marked ⏳.
+     */
+    private static class LoadedToast implements FeatureStatusTracker.Listener, Runnable {
+        private static final long TIMEOUT_MS = 4000;
+
+        private final Activity activity;
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private boolean shown;
+
+        LoadedToast(Activity activity) {
+            this.activity = activity;
+        }
+
+        void start() {
+            FeatureStatusTracker.addListener(this);
+            if (FeatureStatusTracker.hasPendingFeatures()) {
+                handler.postDelayed(this, TIMEOUT_MS);
+            } else {
+                run();
+            }
+        }
+
+        @Override
+        public void onStatusChanged(Feature feature, boolean enabled, boolean hooked, boolean pending) {
+            // Called on the discovery thread
+            if (!FeatureStatusTracker.hasPendingFeatures()) {
+                handler.post(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (shown) return;
+            shown = true;
+            FeatureStatusTracker.removeListener(this);
+            handler.removeCallbacks(this);
+
+            StringBuilder sb = new StringBuilder("InstaEclipse Loaded 🎯\n");
+            for (Feature feature : FeatureStatusTracker.enabledFeatures()) {
+                String state = FeatureStatusTracker.isHooked(feature) ? "✅ " : FeatureStatusTracker.isPending(feature) ? "⏳ " : "❌ ";
+                sb.append(state).append(feature.displayName).append("\n");
+            }
+            sb.append(StartupTracer.summary());
+            CustomToast.showCustomToast(activity.getApplicationContext(), sb.toString().trim());
+        }
+    }
+
     public void mainActivity(ClassLoader classLoader) {
         // Hook onCreate of Instagram Main
         XposedHelpers.findAndHookMethod("com.instagram.mainactivity.InstagramMainActivity", classLoader, "onCreate", android.os.Bundle.class, new XC_MethodHook() {
@@ -137,13 +190,7 @@ public class UIHookManager {
                         if (!FeatureFlags.showFeatureToasts || CustomToast.toastShown) return;
                         CustomToast.toastShown = true;
 
-                        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                            StringBuilder sb = new StringBuilder("InstaEclipse Loaded 🎯\n");
-                            for (Map.Entry<String, Boolean> entry : FeatureStatusTracker.getStatus().entrySet()) {
-                                sb.append(entry.getValue() ? "✅ " : "❌ ").append(entry.getKey()).append("\n");
-                            }
-                            CustomToast.showCustomToast(activity.getApplicationContext(), sb.toString().trim());
-                        }, 1000);
+                        new Handler(Looper.getMainLooper()).postDelayed(new LoadedToast(activity)::start, 1000);
                     } catch (Exception ignored) {
 
                     }
@@ -174,9 +221,6 @@ public class UIHookManager {
         });
 
 
-        // Hook getBottomSheetNavigator - Instagram Main
-        BottomSheetHookUtil.hookBottomSheetNavigator(Module.dexKitBridge);
-
         // Hook onResume - Model
         XposedHelpers.findAndHookMethod("com.instagram.modal.ModalActivity", classLoader, "onResume", new XC_MethodHook() {
             @Override
@@ -7,79 +7,87 @@ import static ps.reso.instaeclipse.mods.ui.UIHookManager.setupHooks;
 import android.app.Activity;
 
 import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.ClassDataList;
 import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.StringAnchors;
 import ps.reso.instaeclipse.utils.ghost.GhostModeUtils;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
 
 public class BottomSheetHookUtil {
 
-    public static void hookBottomSheetNavigator(DexKitBridge bridge) {
-        try {
-            List<MethodData> methods = bridge.findMethod(
-                    FindMethod.create()
-                            .matcher(
-                                    MethodMatcher.create()
-                                            .usingStrings("BottomSheetConstants")
-                            )
-            );
-
-            if (methods.isEmpty()) {
-                return;
+    public static final String CACHE_KEY = "BottomSheet";
+
+    public static List<String> findBottomSheetNavigatorMethods(DexKitBridge bridge) {
+        List<MethodData> methods = StringAnchors.methods(bridge, StringAnchors.BOTTOM_SHEET_CONSTANTS);
+
+        List<String> descriptors = new ArrayList<>();
+        for (MethodData method : methods) {
+            // ✅ Filter to only methods inside the InstagramMainActivity class
+            if (!method.getClassName().equals("com.instagram.mainactivity.InstagramMainActivity")) {
+                continue;
             }
 
-            for (MethodData method : methods) {
-                // ✅ Filter to only methods inside the InstagramMainActivity class
-                if (!method.getClassName().equals("com.instagram.mainactivity.InstagramMainActivity")) {
-                    continue;
-                }
+            int modifiers = method.getModifiers();
+            String returnType = String.valueOf(method.getReturnType());
+            ClassDataList paramTypes = method.getParamTypes();
 
+            // ✅ Match: final, non-static, non-void return, 0-args
+            if (!Modifier.isStatic(modifiers)
+                    && Modifier.isFinal(modifiers)
+                    && !returnType.contains("void")
+                    && paramTypes.size() == 0) {
+                descriptors.add(method.getDescriptor());
+            }
+        }
+        return descriptors;
+    }
+
+    public static List<String> resolveBottomSheetNavigatorMethods() throws Throwable {
+        return DiscoveryCache.resolve(CACHE_KEY, BottomSheetHookUtil::findBottomSheetNavigatorMethods);
+    }
+
+    public static void hookBottomSheetNavigator() {
+        try {
+            List<String> methods = resolveBottomSheetNavigatorMethods();
+
+            for (String descriptor : methods) {
                 Method reflectMethod;
                 try {
-                    reflectMethod = method.getMethodInstance(Module.hostClassLoader);
+                    reflectMethod = StartupTracer.getMethodInstance("BottomSheet", new DexMethod(descriptor), Module.hostClassLoader);
                 } catch (Throwable e) {
                     continue;
                 }
 
-                int modifiers = reflectMethod.getModifiers();
-                String returnType = String.valueOf(method.getReturnType());
-                ClassDataList paramTypes = method.getParamTypes();
-
-                // ✅ Match: final, non-static, non-void return, 0-args
-                if (!Modifier.isStatic(modifiers)
-                        && Modifier.isFinal(modifiers)
-                        && !returnType.contains("void")
-                        && paramTypes.size() == 0) {
-
-                    XposedBridge.hookMethod(reflectMethod, new XC_MethodHook() {
-                        @Override
-                        protected void afterHookedMethod(MethodHookParam param) {
-                            final Activity activity = getCurrentActivity();
-                            if (activity != null) {
-                                activity.runOnUiThread(() -> {
-                                    try {
-                                        setupHooks(activity);
-                                        addGhostEmojiNextToInbox(activity, GhostModeUtils.isGhostModeActive());
-                                    } catch (Exception ignored) {
-                                    }
-                                });
-                            }
+                StartupTracer.hookMethod("BottomSheet", reflectMethod, new XC_MethodHook() {
+                    @Override
+                    protected void afterHookedMethod(MethodHookParam param) {
+                        final Activity activity = getCurrentActivity();
+                        if (activity != null) {
+                            activity.runOnUiThread(() -> {
+                                try {
+                                    setupHooks(activity);
+                                    addGhostEmojiNextToInbox(activity, GhostModeUtils.isGhostModeActive());
+                                } catch (Exception ignored) {
+                                }
+                            });
                         }
-                    });
+                    }
+                });
 
-                    XposedBridge.log("(InstaEclipse | BottomSheet): ✅ Hooked: " +
-                            method.getClassName() + "." + method.getName());
-                    return;
-                }
+                XposedBridge.log("(InstaEclipse | BottomSheet): ✅ Hooked: " +
+                        reflectMethod.getDeclaringClass().getName() + "." + reflectMethod.getName());
+                return;
             }
 
         } catch (Throwable e) {
@@ -87,4 +95,3 @@ public class BottomSheetHookUtil {
         }
     }
 }
-
@@ -0,0 +1,29 @@
+package ps.reso.instaeclipse.utils.core;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import de.robv.android.xposed.XSharedPreferences;
+
+/**
+ * Preferences written by the module app and read from the hooked app.
+ * <p>
+ * Relies on the xposedsharedprefs meta-data: the framework lets the module open its
+ * preferences with MODE_WORLD_READABLE, and XSharedPreferences reads them from the host.
+ */
+public class ModulePrefs {
+
+    // Module app side
+    @SuppressLint("WorldReadableFiles")
+    public static SharedPreferences open(Context context, String name) {
+        return context.getSharedPreferences(name, Context.MODE_WORLD_READABLE);
+    }
+
+    // Hooked app side; returns null if the file is missing or not readable
+    public static XSharedPreferences openRemote(String name) {
+        XSharedPreferences prefs = new XSharedPreferences(CommonUtils.MY_PACKAGE_NAME, name);
+        prefs.reload();
+        return prefs.getFile().canRead() ? prefs : null;
+    }
+}
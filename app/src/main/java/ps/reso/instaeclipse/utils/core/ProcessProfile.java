@@ -0,0 +1,29 @@
+package ps.reso.instaeclipse.utils.core;
+
+import ps.reso.instaeclipse.mods.network.Interceptor;
+
+/**
+ * What a host process gets hooked with.
+ * <p>
+ * Instagram runs several processes (e.g. ":mqtt", ":browser") and every one of them goes
+ * through Application.attach. Only the main UI process needs DexKit discovery and the UI
+ * hooks; the others at most send requests through TigonServiceLayer.
+ */
+public enum ProcessProfile {
+    // Discovery, every feature hook and the UI
+    FULL,
+    // Network interceptor only
+    NETWORK,
+    // Nothing enabled applies to this process
+    NONE;
+
+    /**
+     * Picks the profile from the process name; call after the feature flags are loaded.
+     */
+    public static ProcessProfile forProcess(String packageName, String processName) {
+        if (processName == null || processName.equals(packageName)) {
+            return FULL;
+        }
+        return Interceptor.isNeeded() ? NETWORK : NONE;
+    }
+}
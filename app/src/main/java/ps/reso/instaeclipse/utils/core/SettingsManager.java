@@ -2,13 +2,30 @@ package ps.reso.instaeclipse.utils.core;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.atomic.LongAdder;
 
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.feature.FeatureManager;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+import ps.reso.instaeclipse.utils.feature.LiveFlags;
 
 public class SettingsManager {
     private static final String PREF_NAME = "instaeclipse_prefs";
+    private static final long WRITE_DELAY_MS = 500;
+    private static final Runnable WRITE = SettingsManager::write;
+
     private static SharedPreferences prefs;
+    private static Handler handler;
+    // What the preferences file holds, as a FlagSnapshot word
+    private static long persistedWord;
+
+    // This session only
+    private static final LongAdder saveRequests = new LongAdder();
+    private static final LongAdder writes = new LongAdder();
+    private static final LongAdder keysWritten = new LongAdder();
 
     public static void init(Context context) {
         if (prefs == null) {
@@ -16,54 +33,76 @@ public class SettingsManager {
         }
     }
 
+    /**
+     * Publishes the current flags right away and persists them shortly after.
+     * <p>
+     * Switches call this on every toggle, so the preference write is debounced: a burst of
+     * changes within {@link #WRITE_DELAY_MS} becomes one write, and only the keys that differ
+     * from what was last written are put. Feature status is refreshed only for flags that changed.
+     */
     public static void saveAllFlags() {
-        SharedPreferences.Editor editor = prefs.edit();
+        saveRequests.increment();
 
-        editor.putBoolean("isDevEnabled", FeatureFlags.isDevEnabled);
-
-        // Ghost Mode
-        editor.putBoolean("isGhostModeEnabled", FeatureFlags.isGhostModeEnabled);
-        editor.putBoolean("isGhostSeen", FeatureFlags.isGhostSeen);
-        editor.putBoolean("isGhostTyping", FeatureFlags.isGhostTyping);
-        editor.putBoolean("isGhostScreenshot", FeatureFlags.isGhostScreenshot);
-        editor.putBoolean("isGhostViewOnce", FeatureFlags.isGhostViewOnce);
-        editor.putBoolean("isGhostStory", FeatureFlags.isGhostStory);
-        editor.putBoolean("isGhostLive", FeatureFlags.isGhostLive);
+        FlagSnapshot before = FeatureFlags.snapshot();
+        FeatureFlags.publish();
+        long changed = before.bits ^ FeatureFlags.snapshot().bits;
+        if (changed != 0) {
+            FeatureManager.refreshFeatureStatus(changed);
+        }
+        scheduleWrite();
+    }
 
-        // Quick Toggles
-        editor.putBoolean("quickToggleSeen", FeatureFlags.quickToggleSeen);
-        editor.putBoolean("quickToggleTyping", FeatureFlags.quickToggleTyping);
-        editor.putBoolean("quickToggleScreenshot", FeatureFlags.quickToggleScreenshot);
-        editor.putBoolean("quickToggleViewOnce", FeatureFlags.quickToggleViewOnce);
-        editor.putBoolean("quickToggleStory", FeatureFlags.quickToggleStory);
-        editor.putBoolean("quickToggleLive", FeatureFlags.quickToggleLive);
+    /**
+     * Writes pending changes now, e.g. before the process is killed.
+     */
+    public static void flush() {
+        if (handler != null) {
+            handler.removeCallbacks(WRITE);
+        }
+        write();
+    }
 
-        // Distraction Free
-        editor.putBoolean("isExtremeMode", FeatureFlags.isExtremeMode);
-        editor.putBoolean("isDistractionFree", FeatureFlags.isDistractionFree);
-        editor.putBoolean("disableStories", FeatureFlags.disableStories);
-        editor.putBoolean("disableFeed", FeatureFlags.disableFeed);
-        editor.putBoolean("disableReels", FeatureFlags.disableReels);
-        editor.putBoolean("disableReelsExceptDM", FeatureFlags.disableReelsExceptDM);
-        editor.putBoolean("disableExplore", FeatureFlags.disableExplore);
-        editor.putBoolean("disableComments", FeatureFlags.disableComments);
+    public static String summary() {
+        return "💾 Settings saves: " + saveRequests.sum() + " requested, " + writes.sum()
+                + " written (" + keysWritten.sum() + " keys)";
+    }
 
-        // Ads
-        editor.putBoolean("isAdBlockEnabled", FeatureFlags.isAdBlockEnabled);
-        editor.putBoolean("isAnalyticsBlocked", FeatureFlags.isAnalyticsBlocked);
-        editor.putBoolean("disableTrackingLinks", FeatureFlags.disableTrackingLinks);
+    private static void scheduleWrite() {
+        if (handler == null) {
+            handler = new Handler(Looper.getMainLooper());
+        }
+        handler.removeCallbacks(WRITE);
+        handler.postDelayed(WRITE, WRITE_DELAY_MS);
+    }
 
-        // Misc
-        editor.putBoolean("isMiscEnabled", FeatureFlags.isMiscEnabled);
-        editor.putBoolean("disableStoryFlipping", FeatureFlags.disableStoryFlipping);
-        editor.putBoolean("disableVideoAutoPlay", FeatureFlags.disableVideoAutoPlay);
-        editor.putBoolean("showFollowerToast", FeatureFlags.showFollowerToast);
-        editor.putBoolean("showStoryHiddenToast", FeatureFlags.showStoryHiddenToast);
-        editor.putBoolean("showFeatureToasts", FeatureFlags.showFeatureToasts);
+    private static synchronized void write() {
+        if (prefs == null) {
+            return;
+        }
+        FlagSnapshot flags = FeatureFlags.published();
+        long dirty = flags.word ^ persistedWord;
+        if (dirty == 0) {
+            return;
+        }
 
+        SharedPreferences.Editor editor = prefs.edit();
+        int keys = 0;
+        for (int bit = 0; bit < FlagSnapshot.flagCount(); bit++) {
+            long flag = 1L << bit;
+            if ((dirty & flag) != 0) {
+                editor.putBoolean(FlagSnapshot.key(bit), flags.has(flag));
+                keys++;
+            }
+        }
+        if (flags.dataSaverMaxWidth != FlagSnapshot.fromWord(persistedWord).dataSaverMaxWidth) {
+            editor.putInt("dataSaverMaxWidth", flags.dataSaverMaxWidth);
+            keys++;
+        }
         editor.apply();
 
-        FeatureManager.refreshFeatureStatus();
+        persistedWord = flags.word;
+        writes.increment();
+        keysWritten.add(keys);
     }
 
     public static void loadAllFlags(Context context) {
@@ -72,6 +111,7 @@ public class SettingsManager {
         }
 
         FeatureFlags.isDevEnabled = prefs.getBoolean("isDevEnabled", false);
+        FeatureFlags.recordTraffic = prefs.getBoolean("recordTraffic", false);
 
         // Ghost Mode
         FeatureFlags.isGhostModeEnabled = prefs.getBoolean("isGhostModeEnabled", false);
@@ -99,6 +139,7 @@ public class SettingsManager {
         FeatureFlags.disableReelsExceptDM = prefs.getBoolean("disableReelsExceptDM", false);
         FeatureFlags.disableExplore = prefs.getBoolean("disableExplore", false);
         FeatureFlags.disableComments = prefs.getBoolean("disableComments", false);
+        FeatureFlags.limitPrefetchOnMetered = prefs.getBoolean("limitPrefetchOnMetered", false);
 
         // Ads
         FeatureFlags.isAdBlockEnabled = prefs.getBoolean("isAdBlockEnabled", false);
@@ -112,7 +153,18 @@ public class SettingsManager {
         FeatureFlags.showFollowerToast = prefs.getBoolean("showFollowerToast", false);
         FeatureFlags.showStoryHiddenToast = prefs.getBoolean("showStoryHiddenToast", false);
         FeatureFlags.showFeatureToasts = prefs.getBoolean("showFeatureToasts", false);
+        FeatureFlags.loadFeaturesInBackground = prefs.getBoolean("loadFeaturesInBackground", false);
+        FeatureFlags.dataSaver = prefs.getBoolean("dataSaver", false);
+        FeatureFlags.dataSaverMaxWidth = prefs.getInt("dataSaverMaxWidth", 720);
+
+        persistedWord = FlagSnapshot.capture().word;
 
+        // Processes already running this session may have newer values than this process' preferences
+        LiveFlags.init(context);
+        FeatureFlags.sync();
         FeatureManager.refreshFeatureStatus();
+        if (FeatureFlags.published().word != persistedWord) {
+            scheduleWrite(); // Catch up with them, or with changes a killed process never wrote
+        }
     }
 }
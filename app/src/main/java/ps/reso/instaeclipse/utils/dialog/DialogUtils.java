@@ -3,6 +3,8 @@ package ps.reso.instaeclipse.utils.dialog;
 import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.app.AlertDialog;
+import android.content.ClipData;
+import android.content.ClipboardManager;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
@@ -27,9 +29,18 @@ import java.util.Objects;
 
 import de.robv.android.xposed.XposedBridge;
 import ps.reso.instaeclipse.mods.devops.config.ConfigManager;
+import ps.reso.instaeclipse.mods.devops.config.JsonExportActivity;
 import ps.reso.instaeclipse.mods.ghost.ui.GhostEmojiManager;
+import ps.reso.instaeclipse.mods.misc.DataSaver;
+import ps.reso.instaeclipse.mods.network.BlockedRequests;
+import ps.reso.instaeclipse.mods.network.InterceptStats;
+import ps.reso.instaeclipse.mods.network.PrefetchPolicy;
+import ps.reso.instaeclipse.mods.network.ResponseFilter;
+import ps.reso.instaeclipse.mods.network.TrafficRecorder;
 import ps.reso.instaeclipse.mods.ui.UIHookManager;
 import ps.reso.instaeclipse.utils.core.SettingsManager;
+import ps.reso.instaeclipse.utils.discovery.DiscoveryCache;
+import ps.reso.instaeclipse.utils.discovery.HookManifest;
 import ps.reso.instaeclipse.utils.feature.FeatureFlags;
 import ps.reso.instaeclipse.utils.ghost.GhostModeUtils;
 
@@ -104,10 +115,13 @@ public class DialogUtils {
         // 4 - Misc Features => OPEN PAGE
         mainLayout.addView(createClickableSection(context, "⚙ Misc Features", () -> showMiscOptions(context)));
 
-        // 5 - About => OPEN PAGE
+        // 5 - Interceptor Stats => OPEN PAGE
+        mainLayout.addView(createClickableSection(context, "📊 Interceptor Stats", () -> showInterceptorStats(context)));
+
+        // 6 - About => OPEN PAGE
         mainLayout.addView(createClickableSection(context, "ℹ️ About", () -> showAboutDialog(context)));
 
-        // 6 - Restart Instagram => OPEN PAGE
+        // 7 - Restart Instagram => OPEN PAGE
         mainLayout.addView(createClickableSection(context, "🔁 Restart App", () -> showRestartSection(context)));
 
         mainLayout.addView(createDivider(context));
@@ -251,6 +265,7 @@ public class DialogUtils {
             Intent intent = context.getPackageManager().getLaunchIntentForPackage(packageName);
 
             if (intent != null) {
+                SettingsManager.flush(); // Don't lose a debounced write to the exit below
                 clearAppCache(context); // Clear cache first
                 intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
                 context.startActivity(intent);
@@ -318,6 +333,21 @@ public class DialogUtils {
         });
 
         layout.addView(devModeSwitch);
+
+        // Traffic recording, replayed off device with TrafficReplay
+        @SuppressLint("UseSwitchCompatOrMaterialCode") Switch recordTrafficSwitch = createSwitch(context, "Record Network Traffic", FeatureFlags.recordTraffic);
+        recordTrafficSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            FeatureFlags.recordTraffic = isChecked;
+            SettingsManager.saveAllFlags();
+        });
+        layout.addView(recordTrafficSwitch);
+
+        TextView devStats = new TextView(context);
+        devStats.setText(TrafficRecorder.summary() + "\n" + SettingsManager.summary());
+        devStats.setTextColor(Color.LTGRAY);
+        devStats.setTextSize(14);
+        devStats.setPadding(30, 10, 30, 10);
+        layout.addView(devStats);
         layout.addView(createDivider(context));
 
         // 📥 Import Dev Config Button
@@ -373,6 +403,43 @@ public class DialogUtils {
         });
 
         layout.addView(exportButton);
+        layout.addView(createDivider(context));
+
+        // 📦 Export Hook Manifest Button
+        Button manifestButton = new Button(context);
+        manifestButton.setText("📦 Export Hook Manifest");
+        manifestButton.setOnClickListener(v -> {
+            Activity instagramActivity = UIHookManager.getCurrentActivity();
+            if (instagramActivity == null || instagramActivity.isFinishing()) {
+                showSimpleDialog(context, "Error", "Instagram is not open or ready.");
+                return;
+            }
+
+            HookManifest manifest = DiscoveryCache.exportManifest();
+            if (manifest == null) {
+                showSimpleDialog(context, "Error", "No hooks have been resolved yet.");
+                return;
+            }
+
+            ClipboardManager clipboard = (ClipboardManager) instagramActivity.getSystemService(Context.CLIPBOARD_SERVICE);
+            if (clipboard != null) {
+                clipboard.setPrimaryClip(ClipData.newPlainText("json", manifest.toJson()));
+            }
+
+            // Launch InstaEclipse export screen
+            Intent exportIntent = new Intent();
+            exportIntent.setComponent(new ComponentName("ps.reso.instaeclipse", "ps.reso.instaeclipse.mods.devops.config.JsonExportActivity"));
+            exportIntent.putExtra(JsonExportActivity.EXTRA_FILE_NAME, manifest.fileName());
+            exportIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+
+            try {
+                instagramActivity.startActivity(exportIntent);
+            } catch (Exception e) {
+                showSimpleDialog(context, "Error", "Unable to open InstaEclipse UI.");
+            }
+        });
+
+        layout.addView(manifestButton);
 
         // Save current dev mode flag when dialog is closed
         showSectionDialog(context, "Developer Options 🎛", layout, SettingsManager::saveAllFlags);
@@ -505,6 +572,14 @@ public class DialogUtils {
             layout.addView(s);
         }
 
+        layout.addView(createDivider(context));
+        TextView blockedStats = new TextView(context);
+        blockedStats.setText(BlockedRequests.summary() + "\n🧹 Sponsored items stripped: " + ResponseFilter.strippedItems.sum());
+        blockedStats.setTextColor(Color.LTGRAY);
+        blockedStats.setTextSize(14);
+        blockedStats.setPadding(30, 10, 30, 10);
+        layout.addView(blockedStats);
+
         // Show the dialog
         showSectionDialog(context, "Ad/Analytics Block 🛡️", layout, () -> {
         });
@@ -617,6 +692,22 @@ public class DialogUtils {
             layout.addView(s);
         }
 
+        // Prefetch suppression (not part of Enable/Disable All or Extreme Mode)
+        layout.addView(createDivider(context));
+        @SuppressLint("UseSwitchCompatOrMaterialCode") Switch meteredPrefetchSwitch = createSwitch(context, "Skip Prefetching on Mobile Data", FeatureFlags.limitPrefetchOnMetered);
+        meteredPrefetchSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            FeatureFlags.limitPrefetchOnMetered = isChecked;
+            SettingsManager.saveAllFlags();
+        });
+        layout.addView(meteredPrefetchSwitch);
+
+        TextView prefetchStats = new TextView(context);
+        prefetchStats.setText("⏭️ Prefetches avoided: " + PrefetchPolicy.avoided());
+        prefetchStats.setTextColor(Color.LTGRAY);
+        prefetchStats.setTextSize(14);
+        prefetchStats.setPadding(30, 10, 30, 10);
+        layout.addView(prefetchStats);
+
         showSectionDialog(context, "Distraction-Free Instagram 🧘", layout, () -> {
             FeatureFlags.disableStories = disableStoriesSwitch.isChecked();
             FeatureFlags.disableFeed = disableFeedSwitch.isChecked();
@@ -624,6 +715,7 @@ public class DialogUtils {
             FeatureFlags.disableReelsExceptDM = onlyInDMSwitch.isChecked();
             FeatureFlags.disableExplore = disableExploreSwitch.isChecked();
             FeatureFlags.disableComments = disableCommentsSwitch.isChecked();
+            SettingsManager.saveAllFlags();
         });
 
         SettingsManager.saveAllFlags();
@@ -658,11 +750,12 @@ public class DialogUtils {
     }
 
 
+    @SuppressLint("SetTextI18n")
     private static void showMiscOptions(Context context) {
         LinearLayout layout = createSwitchLayout(context);
 
         // Create all child switches
-        Switch[] switches = new Switch[]{createSwitch(context, "Disable Story Auto-Swipe", FeatureFlags.disableStoryFlipping), createSwitch(context, "Disable Video Autoplay", FeatureFlags.disableVideoAutoPlay), createSwitch(context, "Show Follower Toast", FeatureFlags.showFollowerToast), createSwitch(context, "Show Story Hidden Toast", FeatureFlags.showStoryHiddenToast), createSwitch(context, "Show Feature Toasts", FeatureFlags.showFeatureToasts)};
+        Switch[] switches = new Switch[]{createSwitch(context, "Disable Story Auto-Swipe", FeatureFlags.disableStoryFlipping), createSwitch(context, "Disable Video Autoplay", FeatureFlags.disableVideoAutoPlay), createSwitch(context, "Show Follower Toast", FeatureFlags.showFollowerToast), createSwitch(context, "Show Story Hidden Toast", FeatureFlags.showStoryHiddenToast), createSwitch(context, "Show Feature Toasts", FeatureFlags.showFeatureToasts), createSwitch(context, "Load Features in Background", FeatureFlags.loadFeaturesInBackground), createSwitch(context, "Data Saver (Smaller Images on Mobile Data)", FeatureFlags.dataSaver)};
 
         // Create Enable/Disable All switch
         @SuppressLint("UseSwitchCompatOrMaterialCode") Switch enableAllSwitch = createSwitch(context, "Enable/Disable All", areAllEnabled(switches));
@@ -701,6 +794,12 @@ public class DialogUtils {
                     case 4:
                         FeatureFlags.showFeatureToasts = isChecked;
                         break;
+                    case 5:
+                        FeatureFlags.loadFeaturesInBackground = isChecked;
+                        break;
+                    case 6:
+                        FeatureFlags.dataSaver = isChecked;
+                        break;
                 }
 
                 SettingsManager.saveAllFlags();
@@ -716,12 +815,88 @@ public class DialogUtils {
             layout.addView(s);
         }
 
+        // Data saver image width
+        layout.addView(createDivider(context));
+        Button maxWidthButton = new Button(context);
+        maxWidthButton.setText("📐 Data Saver Max Image Width: " + FeatureFlags.dataSaverMaxWidth + "px");
+        maxWidthButton.setOnClickListener(v -> {
+            FeatureFlags.dataSaverMaxWidth = DataSaver.nextMaxWidth(FeatureFlags.dataSaverMaxWidth);
+            DataSaver.clearVariants();
+            SettingsManager.saveAllFlags();
+            maxWidthButton.setText("📐 Data Saver Max Image Width: " + FeatureFlags.dataSaverMaxWidth + "px");
+        });
+        layout.addView(maxWidthButton);
+
+        TextView dataSaverStats = new TextView(context);
+        dataSaverStats.setText(DataSaver.summary());
+        dataSaverStats.setTextColor(Color.LTGRAY);
+        dataSaverStats.setTextSize(14);
+        dataSaverStats.setPadding(30, 10, 30, 10);
+        layout.addView(dataSaverStats);
+
         // Show dialog
         showSectionDialog(context, "Miscellaneous ⚙️", layout, () -> {
         });
     }
 
 
+    @SuppressLint("SetTextI18n")
+    private static void showInterceptorStats(Context context) {
+        LinearLayout layout = new LinearLayout(context);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(40, 20, 40, 20);
+
+        TextView stats = new TextView(context);
+        stats.setText(InterceptStats.summary());
+        stats.setTextColor(Color.WHITE);
+        stats.setTextSize(14f);
+        stats.setPadding(20, 10, 20, 20);
+        stats.setTextIsSelectable(true);
+        layout.addView(stats);
+        layout.addView(createDivider(context));
+
+        // 📤 Export Stats Button
+        Button exportButton = new Button(context);
+        exportButton.setText("📤 Export Stats");
+        exportButton.setOnClickListener(v -> {
+            Activity instagramActivity = UIHookManager.getCurrentActivity();
+            if (instagramActivity == null || instagramActivity.isFinishing()) {
+                showSimpleDialog(context, "Error", "Instagram is not open or ready.");
+                return;
+            }
+
+            ClipboardManager clipboard = (ClipboardManager) instagramActivity.getSystemService(Context.CLIPBOARD_SERVICE);
+            if (clipboard != null) {
+                clipboard.setPrimaryClip(ClipData.newPlainText("json", InterceptStats.toJson()));
+            }
+
+            // Launch InstaEclipse export screen
+            Intent exportIntent = new Intent();
+            exportIntent.setComponent(new ComponentName("ps.reso.instaeclipse", "ps.reso.instaeclipse.mods.devops.config.JsonExportActivity"));
+            exportIntent.putExtra(JsonExportActivity.EXTRA_FILE_NAME, "instaeclipse_interceptor_stats.json");
+            exportIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+
+            try {
+                instagramActivity.startActivity(exportIntent);
+            } catch (Exception e) {
+                showSimpleDialog(context, "Error", "Unable to open InstaEclipse UI.");
+            }
+        });
+        layout.addView(exportButton);
+
+        // ♻️ Reset Stats Button
+        Button resetButton = new Button(context);
+        resetButton.setText("♻️ Reset Stats");
+        resetButton.setOnClickListener(v -> {
+            InterceptStats.reset();
+            stats.setText(InterceptStats.summary());
+        });
+        layout.addView(resetButton);
+
+        showSectionDialog(context, "Interceptor Stats 📊", layout, () -> {
+        });
+    }
+
     @SuppressLint("SetTextI18n")
     private static void showAboutDialog(Context context) {
         LinearLayout layout = new LinearLayout(context);
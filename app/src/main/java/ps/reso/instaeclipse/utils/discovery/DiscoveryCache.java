@@ -0,0 +1,414 @@
+package ps.reso.instaeclipse.utils.discovery;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+
+import com.google.gson.Gson;
+
+import org.luckypray.dexkit.DexKitBridge;
+import org.luckypray.dexkit.result.ClassData;
+import org.luckypray.dexkit.result.MethodData;
+import org.luckypray.dexkit.wrap.DexMethod;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import de.robv.android.xposed.XSharedPreferences;
+import de.robv.android.xposed.XposedBridge;
+import ps.reso.instaeclipse.Xposed.Module;
+import ps.reso.instaeclipse.utils.core.ModulePrefs;
+
+/**
+ * Persistent store of DexKit resolutions for the host APK.
+ * <p>
+ * Entries are keyed by feature and hold the resolved descriptors (or an empty list when the
+ * feature could not be resolved). The whole file is bound to the host identity
+ * (package, versionCode, dex checksum and module build). When there is no usable cache, an
+ * imported {@link HookManifest} for the same package and versionCode seeds it instead.
+ * <p>
+ * After a host update the previous entries are kept as candidates. Each one is revalidated
+ * cheaply (classes load, signatures and modifiers match, the anchor string is still referenced)
+ * and only features that fail this check run their full DexKit resolver again. Loading and
+ * modifiers are checked through reflection; the DexKit bridge is only opened for targets that
+ * have an anchor string, once everything else has passed.
+ */
+public class DiscoveryCache {
+
+    public interface Resolver {
+        List<String> resolve(DexKitBridge bridge) throws Throwable;
+    }
+
+    // 3: modifiers are the reflected ones
+    private static final int FORMAT_VERSION = 3;
+    private static final String CACHE_DIR = "instaeclipse";
+    private static final String CACHE_FILE = "dexkit_cache.json";
+
+    private static final Map<String, List<String>> entries = new ConcurrentHashMap<>();
+    private static final Map<String, List<Target>> targets = new ConcurrentHashMap<>();
+    private static final Map<String, List<Target>> candidates = new ConcurrentHashMap<>();
+    private static final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+    private static File cacheFile;
+    private static String identity;
+    private static String hostPackage;
+    private static long hostVersionCode;
+    private static String hostVersionName;
+    private static volatile boolean dirty = false;
+
+    public static void init(Context context, String moduleSourceDir) {
+        try {
+            cacheFile = new File(new File(context.getFilesDir(), CACHE_DIR), CACHE_FILE);
+            identity = computeIdentity(context, moduleSourceDir);
+            entries.clear();
+            targets.clear();
+            candidates.clear();
+            failures.clear();
+
+            if (!cacheFile.exists()) {
+                XposedBridge.log("(InstaEclipse | DiscoveryCache): No cache yet for " + identity);
+                loadManifest();
+                return;
+            }
+
+            CacheFile stored;
+            try (Reader reader = new FileReader(cacheFile)) {
+                stored = new Gson().fromJson(reader, CacheFile.class);
+            }
+
+            if (stored == null || stored.format != FORMAT_VERSION || stored.entries == null) {
+                XposedBridge.log("(InstaEclipse | DiscoveryCache): ♻️ Cache format changed, discarding cache");
+                dirty = true;
+                loadManifest();
+                return;
+            }
+
+            if (!identity.equals(stored.identity)) {
+                dirty = true;
+                loadManifest();
+                if (entries.isEmpty() && stored.targets != null && hostPackage.equals(packageOf(stored.identity))) {
+                    candidates.putAll(stored.targets);
+                    XposedBridge.log("(InstaEclipse | DiscoveryCache): ♻️ Host changed, revalidating " + candidates.size() + " cached resolutions");
+                } else if (entries.isEmpty()) {
+                    XposedBridge.log("(InstaEclipse | DiscoveryCache): ♻️ Host changed, discarding cache");
+                }
+                return;
+            }
+
+            entries.putAll(stored.entries);
+            if (stored.targets != null) targets.putAll(stored.targets);
+            XposedBridge.log("(InstaEclipse | DiscoveryCache): ✅ Loaded " + entries.size() + " cached resolutions");
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse | DiscoveryCache): ❌ Failed to load cache: " + t.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the cached resolution for {@code key}, running {@code resolver} against the
+     * DexKit bridge only on a miss that could not be revalidated from the previous host build.
+     * Empty results are cached too; failures are only remembered for this session so a resolver
+     * that already failed is not rerun when its hook is installed.
+     * Safe to call from discovery worker threads.
+     */
+    public static List<String> resolve(String key, Resolver resolver) throws Throwable {
+        List<String> cached = entries.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Throwable failure = failures.get(key);
+        if (failure != null) {
+            throw failure;
+        }
+
+        List<Target> candidate = candidates.remove(key);
+        if (candidate != null) {
+            String mismatch = revalidate(candidate);
+            if (mismatch == null) {
+                List<String> revalidated = new ArrayList<>();
+                for (Target target : candidate) {
+                    revalidated.add(target.value);
+                }
+                revalidated = Collections.unmodifiableList(revalidated);
+                entries.put(key, revalidated);
+                targets.put(key, candidate);
+                dirty = true;
+                XposedBridge.log("(InstaEclipse | DiscoveryCache): ✅ " + key + " still valid, skipped rescan");
+                return revalidated;
+            }
+            XposedBridge.log("(InstaEclipse | DiscoveryCache): 🔍 " + key + " moved (" + mismatch + "), rescanning");
+        }
+
+        DexKitBridge bridge = Module.getDexKitBridge();
+        if (bridge == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> resolved;
+        Set<String> anchors = new LinkedHashSet<>();
+        StringAnchors.startTracking(anchors);
+        try {
+            resolved = resolver.resolve(bridge);
+        } catch (Throwable t) {
+            failures.put(key, t);
+            throw t;
+        } finally {
+            StringAnchors.stopTracking();
+        }
+        resolved = resolved == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(resolved));
+        entries.put(key, resolved);
+        List<Target> described = describe(bridge, resolved, anchors);
+        if (described != null) {
+            targets.put(key, described);
+        }
+        dirty = true;
+        return resolved;
+    }
+
+    // Records what revalidation checks later: modifiers and the anchor each target references.
+    // Returns null when some value is neither a method descriptor nor a class name.
+    private static List<Target> describe(DexKitBridge bridge, List<String> values, Set<String> anchors) {
+        if (values.isEmpty()) {
+            return null;
+        }
+
+        try {
+            List<Target> described = new ArrayList<>();
+            for (String value : values) {
+                Target target = new Target();
+                target.value = value;
+                target.modifiers = reflectedModifiers(value, Module.hostClassLoader);
+
+                if (isMethodDescriptor(value)) {
+                    MethodData method = bridge.getMethodData(value);
+                    if (method == null) return null;
+                    target.anchor = firstReferenced(anchors, method.getUsingStrings());
+                    if (target.anchor == null) {
+                        target.anchor = firstReferenced(anchors, classStrings(bridge.getClassData(classDescriptor(method.getClassName()))));
+                        target.anchorInClass = target.anchor != null;
+                    }
+                } else {
+                    ClassData clazz = bridge.getClassData(classDescriptor(value));
+                    if (clazz == null) return null;
+                    target.anchor = firstReferenced(anchors, classStrings(clazz));
+                    target.anchorInClass = target.anchor != null;
+                }
+                described.add(target);
+            }
+            return described;
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    // Returns why a target from the previous build no longer fits, or null if they all do
+    private static String revalidate(List<Target> candidate) {
+        ClassLoader classLoader = Module.hostClassLoader;
+        for (Target target : candidate) {
+            try {
+                // Loads the class and, for methods, resolves the signature
+                if (reflectedModifiers(target.value, classLoader) != target.modifiers) {
+                    return target.value + " modifiers changed";
+                }
+            } catch (Throwable t) {
+                return target.value + " not loadable";
+            }
+        }
+
+        // Only the anchors need the dex index
+        DexKitBridge bridge = null;
+        for (Target target : candidate) {
+            if (target.anchor == null) {
+                continue;
+            }
+            if (bridge == null) {
+                bridge = Module.getDexKitBridge();
+                if (bridge == null) return "DexKit unavailable";
+            }
+
+            try {
+                List<String> strings;
+                if (isMethodDescriptor(target.value)) {
+                    MethodData method = bridge.getMethodData(target.value);
+                    if (method == null) return target.value + " not in dex";
+                    strings = target.anchorInClass
+                            ? classStrings(bridge.getClassData(classDescriptor(method.getClassName())))
+                            : method.getUsingStrings();
+                } else {
+                    strings = classStrings(bridge.getClassData(classDescriptor(target.value)));
+                }
+                if (!strings.contains(target.anchor)) {
+                    return target.value + " no longer references \"" + target.anchor + "\"";
+                }
+            } catch (Throwable t) {
+                return target.value + " not in dex";
+            }
+        }
+        return null;
+    }
+
+    // Java language modifiers of a method descriptor or class name, as reflection reports them
+    private static int reflectedModifiers(String value, ClassLoader classLoader) throws Throwable {
+        if (isMethodDescriptor(value)) {
+            return new DexMethod(value).getMethodInstance(classLoader).getModifiers() & Modifier.methodModifiers();
+        }
+        return Class.forName(value, false, classLoader).getModifiers() & Modifier.classModifiers();
+    }
+
+    private static boolean isMethodDescriptor(String value) {
+        return value.contains("->");
+    }
+
+    private static String classDescriptor(String className) {
+        return "L" + className.replace('.', '/') + ";";
+    }
+
+    private static List<String> classStrings(ClassData clazz) {
+        if (clazz == null) {
+            return Collections.emptyList();
+        }
+        Set<String> strings = new HashSet<>();
+        for (MethodData method : clazz.getMethods()) {
+            strings.addAll(method.getUsingStrings());
+        }
+        return new ArrayList<>(strings);
+    }
+
+    private static String firstReferenced(Set<String> anchors, List<String> strings) {
+        for (String anchor : anchors) {
+            if (strings.contains(anchor)) {
+                return anchor;
+            }
+        }
+        return null;
+    }
+
+    private static String packageOf(String storedIdentity) {
+        if (storedIdentity == null) return null;
+        int end = storedIdentity.indexOf('|');
+        return end < 0 ? storedIdentity : storedIdentity.substring(0, end);
+    }
+
+    /**
+     * Builds a manifest from the current resolutions so other devices on this build can skip
+     * DexKit. Returns null before {@link #init} or when nothing has been resolved yet.
+     */
+    public static HookManifest exportManifest() {
+        if (hostPackage == null || entries.isEmpty()) {
+            return null;
+        }
+        return HookManifest.create(hostPackage, hostVersionCode, hostVersionName, entries);
+    }
+
+    // An imported manifest for this exact package and versionCode seeds the cache on a miss
+    private static void loadManifest() {
+        try {
+            XSharedPreferences prefs = ModulePrefs.openRemote(HookManifest.PREFS_NAME);
+            String json = prefs != null ? prefs.getString(HookManifest.prefKey(hostPackage, hostVersionCode), null) : null;
+            if (json == null) {
+                return;
+            }
+
+            HookManifest manifest = HookManifest.fromJson(json);
+            if (!manifest.matches(hostPackage, hostVersionCode)) {
+                return;
+            }
+
+            entries.putAll(manifest.entries);
+            dirty = true;
+            XposedBridge.log("(InstaEclipse | DiscoveryCache): 📦 Using imported manifest with " + manifest.entries.size() + " resolutions");
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse | DiscoveryCache): ❌ Failed to load manifest: " + t.getMessage());
+        }
+    }
+
+    public static void save() {
+        if (!dirty || cacheFile == null || identity == null) {
+            return;
+        }
+
+        try {
+            File parent = cacheFile.getParentFile();
+            if (parent != null && !parent.exists()) parent.mkdirs();
+
+            CacheFile stored = new CacheFile();
+            stored.format = FORMAT_VERSION;
+            stored.identity = identity;
+            stored.entries = new ConcurrentHashMap<>(entries);
+            stored.targets = new ConcurrentHashMap<>(targets);
+
+            File tmp = new File(cacheFile.getPath() + ".tmp");
+            try (Writer writer = new FileWriter(tmp, false)) {
+                new Gson().toJson(stored, writer);
+            }
+            if (!tmp.renameTo(cacheFile)) {
+                throw new IllegalStateException("rename failed");
+            }
+
+            dirty = false;
+            XposedBridge.log("(InstaEclipse | DiscoveryCache): 💾 Saved " + stored.entries.size() + " resolutions");
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse | DiscoveryCache): ❌ Failed to save cache: " + t.getMessage());
+        }
+    }
+
+    private static String computeIdentity(Context context, String moduleSourceDir) throws Exception {
+        String packageName = context.getPackageName();
+        PackageInfo packageInfo = context.getPackageManager().getPackageInfo(packageName, 0);
+        hostPackage = packageName;
+        hostVersionCode = packageInfo.getLongVersionCode();
+        hostVersionName = packageInfo.versionName;
+        String sourceDir = context.getApplicationInfo().sourceDir;
+        long moduleStamp = moduleSourceDir != null ? new File(moduleSourceDir).lastModified() : 0;
+
+        return packageName + "|" + hostVersionCode + "|" + Long.toHexString(dexChecksum(sourceDir)) + "|" + moduleStamp;
+    }
+
+    // Combines the stored CRCs of every classes*.dex entry; only the zip central directory is read.
+    private static long dexChecksum(String apkPath) throws Exception {
+        CRC32 crc = new CRC32();
+        try (ZipFile zip = new ZipFile(apkPath)) {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                String name = entry.getName();
+                if (name.startsWith("classes") && name.endsWith(".dex")) {
+                    long value = entry.getCrc() ^ (entry.getSize() << 32);
+                    for (int i = 0; i < 8; i++) {
+                        crc.update((int) (value >>> (i * 8)) & 0xFF);
+                    }
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static class CacheFile {
+        int format;
+        String identity;
+        Map<String, List<String>> entries;
+        Map<String, List<Target>> targets;
+    }
+
+    private static class Target {
+        String value;          // method descriptor or class name
+        int modifiers;
+        String anchor;         // anchor string the target (or its class) references, if any
+        boolean anchorInClass;
+    }
+}
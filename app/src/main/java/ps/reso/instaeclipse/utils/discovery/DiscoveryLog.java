@@ -0,0 +1,27 @@
+package ps.reso.instaeclipse.utils.discovery;
+
+import android.util.Log;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * Logging for code shared by the hooked app and the module app's pre-scan. XposedBridge is
+ * only reachable inside hooked processes, so the module app falls back to logcat.
+ */
+public class DiscoveryLog {
+
+    private static final String TAG = "InstaEclipse";
+    private static volatile boolean xposedAvailable = true;
+
+    public static void log(String message) {
+        if (xposedAvailable) {
+            try {
+                XposedBridge.log(message);
+                return;
+            } catch (Throwable t) {
+                xposedAvailable = false;
+            }
+        }
+        Log.i(TAG, message);
+    }
+}
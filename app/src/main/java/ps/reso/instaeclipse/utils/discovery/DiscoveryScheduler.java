@@ -0,0 +1,228 @@
+package ps.reso.instaeclipse.utils.discovery;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.robv.android.xposed.XposedBridge;
+import ps.reso.instaeclipse.utils.feature.Feature;
+import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
+
+/**
+ * Runs independent feature resolvers concurrently on a bounded worker pool and installs the
+ * matching hooks.
+ * <p>
+ * {@link #runAll()} blocks the caller: resolvers run on the workers and hooks are installed
+ * afterwards on the calling thread, in the order the features were added.
+ * {@link #start(Runnable)} returns immediately: each feature's hook is installed as soon as
+ * its resolver finishes, and {@link #await(long, Feature...)} lets callers wait, bounded, for
+ * the features they need.
+ */
+public class DiscoveryScheduler {
+
+    public interface Job {
+        void run() throws Throwable;
+    }
+
+    public static class Result {
+        public final String name;
+        public final long durationMs;
+        public final Throwable failure;
+
+        Result(String name, long durationMs, Throwable failure) {
+            this.name = name;
+            this.durationMs = durationMs;
+            this.failure = failure;
+        }
+    }
+
+    private static class Entry {
+        final String name;
+        // Features reported as pending until the hook is installed; empty for untracked hooks
+        final Feature[] tracked;
+        final Job resolve;
+        final Runnable install;
+        final CountDownLatch ready = new CountDownLatch(1);
+
+        Entry(String name, Feature[] tracked, Job resolve, Runnable install) {
+            this.name = name;
+            this.tracked = tracked;
+            this.resolve = resolve;
+            this.install = install;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    // Hooks are installed one at a time, whichever thread resolved them
+    private final Object installLock = new Object();
+
+    /**
+     * Adds the hook for {@code feature}, which {@link FeatureStatusTracker} reports as pending
+     * until the hook is installed. {@code shared} are other features the same hook serves.
+     */
+    public DiscoveryScheduler add(Feature feature, Job resolve, Runnable install, Feature... shared) {
+        Feature[] tracked = new Feature[shared.length + 1];
+        tracked[0] = feature;
+        System.arraycopy(shared, 0, tracked, 1, shared.length);
+        return add(new Entry(feature.displayName, tracked, resolve, install));
+    }
+
+    /**
+     * Adds a hook that has no {@link Feature} of its own to report on.
+     */
+    public DiscoveryScheduler add(String name, Job resolve, Runnable install) {
+        return add(new Entry(name, new Feature[0], resolve, install));
+    }
+
+    private DiscoveryScheduler add(Entry entry) {
+        entries.put(entry.name, entry);
+        return this;
+    }
+
+    /**
+     * Resolves every feature in parallel, then installs the hooks on the calling thread.
+     */
+    public List<Result> runAll() {
+        return execute(false);
+    }
+
+    /**
+     * Resolves and installs every feature in the background; {@code onFinished} runs on the
+     * discovery thread once all hooks are installed.
+     */
+    public void start(Runnable onFinished) {
+        for (Entry entry : entries.values()) {
+            for (Feature feature : entry.tracked) {
+                FeatureStatusTracker.setPending(feature);
+            }
+        }
+
+        Thread thread = new Thread(() -> {
+            execute(true);
+            if (onFinished != null) {
+                onFinished.run();
+            }
+        }, "InstaEclipse-Discovery");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} in total for the given features' hooks to be installed.
+     * Features that were never added are ignored. Returns false if the wait timed out.
+     */
+    public boolean await(long timeoutMs, Feature... features) {
+        long deadline = SystemClock.elapsedRealtime() + timeoutMs;
+        try {
+            for (Feature feature : features) {
+                Entry entry = entries.get(feature.displayName);
+                if (entry == null) continue;
+
+                long remaining = deadline - SystemClock.elapsedRealtime();
+                if (remaining <= 0 || !entry.ready.await(remaining, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<Result> execute(boolean installAsResolved) {
+        List<Result> results = new ArrayList<>();
+        if (entries.isEmpty()) {
+            return results;
+        }
+
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), entries.size()));
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "InstaEclipse-Discovery-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = SystemClock.elapsedRealtime();
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Entry entry : entries.values()) {
+                futures.add(pool.submit(() -> {
+                    Result result = resolve(entry);
+                    if (installAsResolved) {
+                        install(entry);
+                    }
+                    return result;
+                }));
+            }
+
+            int index = 0;
+            for (Entry entry : entries.values()) {
+                Future<Result> future = futures.get(index++);
+                try {
+                    results.add(future.get());
+                } catch (Throwable t) {
+                    results.add(new Result(entry.name, 0, t));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long wallMs = SystemClock.elapsedRealtime() - start;
+        long serialMs = 0;
+        int failed = 0;
+        for (Result result : results) {
+            serialMs += result.durationMs;
+            if (result.failure != null) {
+                failed++;
+                XposedBridge.log("(InstaEclipse | Discovery): ❌ " + result.name + " failed: " + result.failure.getMessage());
+            }
+        }
+
+        XposedBridge.log("(InstaEclipse | Discovery): ✅ " + results.size() + " resolvers on " + threads + " threads in " + wallMs + "ms (" + serialMs + "ms serial, " + failed + " failed)");
+
+        if (!installAsResolved) {
+            for (Entry entry : entries.values()) {
+                install(entry);
+            }
+        }
+        return results;
+    }
+
+    private static Result resolve(Entry entry) {
+        long start = SystemClock.elapsedRealtime();
+        try (StartupTracer.Section ignored = StartupTracer.section(entry.name, "resolve")) {
+            entry.resolve.run();
+            return new Result(entry.name, SystemClock.elapsedRealtime() - start, null);
+        } catch (Throwable t) {
+            return new Result(entry.name, SystemClock.elapsedRealtime() - start, t);
+        }
+    }
+
+    private void install(Entry entry) {
+        synchronized (installLock) {
+            try {
+                entry.install.run();
+            } catch (Throwable t) {
+                XposedBridge.log("(InstaEclipse | " + entry.name + "): ❌ Failed to hook");
+            } finally {
+                for (Feature feature : entry.tracked) {
+                    FeatureStatusTracker.setResolved(feature);
+                }
+                entry.ready.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ps.reso.instaeclipse.utils.discovery;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ps.reso.instaeclipse.BuildConfig;
+
+/**
+ * Versioned, shareable set of hook targets for one Instagram build.
+ * <p>
+ * A manifest holds the same feature → descriptor entries as {@link DiscoveryCache}, bound to a
+ * package name and versionCode instead of the exact APK. One device can export it, the module
+ * app imports it, and every other device on that build then hooks without running DexKit.
+ * <p>
+ * Entries are only meaningful to the resolvers that wrote them, so a manifest is also bound to
+ * the module's versionCode, the way {@link DiscoveryCache} binds the module APK.
+ */
+public class HookManifest {
+
+    public static final int FORMAT_VERSION = 2;
+
+    // Module-side preferences holding imported manifests, readable from the hooked app
+    public static final String PREFS_NAME = "instaeclipse_manifests";
+
+    public int format;
+    public String packageName;
+    public long versionCode;
+    public String versionName;
+    public long moduleVersionCode;
+    public Map<String, List<String>> entries;
+
+    public static HookManifest create(String packageName, long versionCode, String versionName, Map<String, List<String>> entries) {
+        HookManifest manifest = new HookManifest();
+        manifest.format = FORMAT_VERSION;
+        manifest.packageName = packageName;
+        manifest.versionCode = versionCode;
+        manifest.versionName = versionName;
+        manifest.moduleVersionCode = BuildConfig.VERSION_CODE;
+        manifest.entries = new TreeMap<>(entries);
+        return manifest;
+    }
+
+    /**
+     * Parses and validates a manifest; throws IllegalArgumentException if it is not usable.
+     */
+    public static HookManifest fromJson(String json) {
+        HookManifest manifest;
+        try {
+            manifest = new Gson().fromJson(json, HookManifest.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Not a hook manifest");
+        }
+
+        if (manifest == null || manifest.packageName == null || manifest.entries == null || manifest.versionCode <= 0) {
+            throw new IllegalArgumentException("Not a hook manifest");
+        }
+        if (manifest.format != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported manifest format " + manifest.format);
+        }
+        if (manifest.moduleVersionCode != BuildConfig.VERSION_CODE) {
+            throw new IllegalArgumentException("Manifest was made by module version " + manifest.moduleVersionCode + ", this is " + BuildConfig.VERSION_CODE);
+        }
+        return manifest;
+    }
+
+    public String toJson() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(this);
+    }
+
+    public boolean matches(String packageName, long versionCode) {
+        return this.packageName.equals(packageName) && this.versionCode == versionCode
+                && moduleVersionCode == BuildConfig.VERSION_CODE;
+    }
+
+    public String prefKey() {
+        return prefKey(packageName, versionCode);
+    }
+
+    public static String prefKey(String packageName, long versionCode) {
+        return "manifest_" + packageName + "_" + versionCode + "_" + BuildConfig.VERSION_CODE;
+    }
+
+    public String fileName() {
+        return "instaeclipse_hooks_" + packageName + "_" + versionCode + ".json";
+    }
+}
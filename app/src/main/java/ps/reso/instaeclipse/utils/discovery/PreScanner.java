@@ -0,0 +1,175 @@
+package ps.reso.instaeclipse.utils.discovery;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.luckypray.dexkit.DexKitBridge;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ps.reso.instaeclipse.mods.ads.AdBlocker;
+import ps.reso.instaeclipse.mods.devops.DevOptionsEnable;
+import ps.reso.instaeclipse.mods.ghost.ScreenshotDetection;
+import ps.reso.instaeclipse.mods.ghost.SeenState;
+import ps.reso.instaeclipse.mods.ghost.StorySeen;
+import ps.reso.instaeclipse.mods.ghost.TypingStatus;
+import ps.reso.instaeclipse.mods.ghost.ViewOnce;
+import ps.reso.instaeclipse.mods.misc.AutoPlayDisable;
+import ps.reso.instaeclipse.mods.misc.FollowerIndicator;
+import ps.reso.instaeclipse.mods.misc.StoryFlipping;
+import ps.reso.instaeclipse.mods.network.ResponseFilter;
+import ps.reso.instaeclipse.mods.ui.utils.BottomSheetHookUtil;
+import ps.reso.instaeclipse.utils.core.CommonUtils;
+import ps.reso.instaeclipse.utils.core.ModulePrefs;
+
+/**
+ * Resolves every hook target from the module app, ahead of Instagram's next start.
+ * <p>
+ * The installed Instagram APK is scanned with DexKit on a background thread and the result is
+ * published as a {@link HookManifest} in the module preferences, where the hooked app picks it
+ * up instead of running DexKit itself. Runs when the module app opens and when Instagram is
+ * updated while it is running.
+ */
+public class PreScanner {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "InstaEclipse-PreScan");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile boolean scanning = false;
+    // Instagram build last scanned in this process, whatever the outcome
+    private static volatile String attemptedBuild;
+
+    public static boolean isScanning() {
+        return scanning;
+    }
+
+    /**
+     * Returns true if a manifest for the installed Instagram build has been published.
+     */
+    public static boolean hasFreshManifest(Context context) {
+        try {
+            PackageInfo packageInfo = context.getPackageManager().getPackageInfo(CommonUtils.IG_PACKAGE_NAME, 0);
+            return isFresh(ModulePrefs.open(context, HookManifest.PREFS_NAME), packageInfo);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /**
+     * Scans the installed Instagram in the background unless its manifest is already
+     * published, or this build was already tried since the module app started. {@code onDone}
+     * runs on the main thread afterwards, if given.
+     */
+    public static void scanIfNeeded(Context context, Runnable onDone) {
+        Context appContext = context.getApplicationContext();
+        if (scanning) {
+            return;
+        }
+
+        PackageInfo packageInfo;
+        SharedPreferences prefs;
+        try {
+            packageInfo = appContext.getPackageManager().getPackageInfo(CommonUtils.IG_PACKAGE_NAME, 0);
+            // Throws while the module is not active in LSPosed: there is nowhere to publish to
+            prefs = ModulePrefs.open(appContext, HookManifest.PREFS_NAME);
+        } catch (Throwable t) {
+            return;
+        }
+        String build = HookManifest.prefKey(packageInfo.packageName, packageInfo.getLongVersionCode());
+        if (build.equals(attemptedBuild) || isFresh(prefs, packageInfo)) {
+            return;
+        }
+
+        attemptedBuild = build;
+        scanning = true;
+        executor.execute(() -> {
+            try {
+                publish(appContext);
+            } catch (Throwable t) {
+                DiscoveryLog.log("(InstaEclipse | PreScan): ❌ Failed: " + t);
+            } finally {
+                scanning = false;
+                if (onDone != null) {
+                    new Handler(Looper.getMainLooper()).post(onDone);
+                }
+            }
+        });
+    }
+
+    private static boolean isFresh(SharedPreferences prefs, PackageInfo packageInfo) {
+        try {
+            String json = prefs.getString(HookManifest.prefKey(packageInfo.packageName, packageInfo.getLongVersionCode()), null);
+            return json != null && HookManifest.fromJson(json).matches(packageInfo.packageName, packageInfo.getLongVersionCode());
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    private static void publish(Context context) throws Exception {
+        PackageInfo packageInfo = context.getPackageManager().getPackageInfo(CommonUtils.IG_PACKAGE_NAME, 0);
+        long start = SystemClock.elapsedRealtime();
+
+        Map<String, List<String>> entries = scan(packageInfo.applicationInfo.sourceDir);
+        HookManifest manifest = HookManifest.create(packageInfo.packageName, packageInfo.getLongVersionCode(), packageInfo.versionName, entries);
+
+        SharedPreferences prefs = ModulePrefs.open(context, HookManifest.PREFS_NAME);
+        if (!prefs.edit().putString(manifest.prefKey(), manifest.toJson()).commit()) {
+            throw new IllegalStateException("Could not save manifest");
+        }
+
+        DiscoveryLog.log("(InstaEclipse | PreScan): ✅ Published " + entries.size() + " resolutions for " + manifest.packageName + " " + manifest.versionName + " in " + (SystemClock.elapsedRealtime() - start) + "ms");
+    }
+
+    // Same resolvers and cache keys the hooked app uses, run against the APK on disk
+    private static Map<String, List<String>> scan(String apkPath) {
+        System.loadLibrary("dexkit");
+
+        Map<String, List<String>> entries = new LinkedHashMap<>();
+        try (DexKitBridge bridge = DexKitBridge.create(apkPath)) {
+            put(entries, bridge, DevOptionsEnable.CACHE_KEY, new DevOptionsEnable()::findDevOptionsMethods);
+            put(entries, bridge, SeenState.CACHE_KEY, new SeenState()::findSeenMethods);
+            put(entries, bridge, TypingStatus.CACHE_KEY, new TypingStatus()::findTypingMethods);
+            put(entries, bridge, ScreenshotDetection.CACHE_KEY, new ScreenshotDetection()::findScreenshotMethods);
+            put(entries, bridge, ViewOnce.CACHE_KEY, new ViewOnce()::findViewOnceMethods);
+            put(entries, bridge, StorySeen.CACHE_KEY, new StorySeen()::findStorySeenMethods);
+            put(entries, bridge, AdBlocker.CACHE_KEY, new AdBlocker()::findSponsoredMethods);
+            put(entries, bridge, StoryFlipping.CACHE_KEY, new StoryFlipping()::findStoryFlippingMethods);
+            put(entries, bridge, AutoPlayDisable.CACHE_KEY, new AutoPlayDisable()::findAutoPlayMethods);
+            put(entries, bridge, ResponseFilter.CACHE_KEY, new ResponseFilter()::findParserFactoryMethods);
+            put(entries, bridge, BottomSheetHookUtil.CACHE_KEY, BottomSheetHookUtil::findBottomSheetNavigatorMethods);
+
+            FollowerIndicator followerIndicator = new FollowerIndicator();
+            put(entries, bridge, FollowerIndicator.CACHE_KEY, followerIndicator::findFollowerEntry);
+            List<String> follower = entries.get(FollowerIndicator.CACHE_KEY);
+            if (follower != null && follower.size() >= 4) {
+                String userClassName = FollowerIndicator.FollowMethodResult.fromCacheEntry(follower).userClassName;
+                put(entries, bridge, FollowerIndicator.USER_ID_CACHE_KEY, b -> followerIndicator.findUserIdEntry(b, userClassName));
+            }
+        } finally {
+            StringAnchors.clear();
+        }
+        return entries;
+    }
+
+    // Failed resolvers are left out so the hooked app retries them itself
+    private static void put(Map<String, List<String>> entries, DexKitBridge bridge, String key, DiscoveryCache.Resolver resolver) {
+        try {
+            List<String> resolved = resolver.resolve(bridge);
+            entries.put(key, resolved != null ? resolved : Collections.emptyList());
+        } catch (Throwable t) {
+            DiscoveryLog.log("(InstaEclipse | PreScan): ❌ " + key + " failed: " + t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ps.reso.instaeclipse.utils.discovery;
+
+import org.luckypray.dexkit.DexKitBridge;
+import org.luckypray.dexkit.query.BatchFindClassUsingStrings;
+import org.luckypray.dexkit.query.BatchFindMethodUsingStrings;
+import org.luckypray.dexkit.query.FindClass;
+import org.luckypray.dexkit.query.FindMethod;
+import org.luckypray.dexkit.query.matchers.ClassMatcher;
+import org.luckypray.dexkit.query.matchers.MethodMatcher;
+import org.luckypray.dexkit.result.ClassData;
+import org.luckypray.dexkit.result.MethodData;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ps.reso.instaeclipse.utils.trace.StartupTracer;
+
+/**
+ * Resolves every string anchor used by the features in a single pass over the dex.
+ * <p>
+ * Instead of one {@code usingStrings} query per feature, all anchors are submitted as one
+ * batchFindMethodUsingStrings and one batchFindClassUsingStrings query the first time any
+ * resolver needs them. Features then filter the shared results by signature as before.
+ */
+public class StringAnchors {
+
+    // Methods referencing these strings
+    public static final String MARK_THREAD_SEEN = "mark_thread_seen-";
+    public static final String TYPING_INDICATOR = "is_typing_indicator_enabled";
+    public static final String VISUAL_ITEM_SEEN = "visual_item_seen";
+    public static final String MEDIA_SEEN = "media/seen/";
+    public static final String SPONSORED_INSERT_ITEM = "SponsoredContentController.insertItem";
+    public static final String DISABLE_VIDEO_AUTOPLAY = "ig_disable_video_autoplay";
+    public static final String IS_EMPLOYEE = "is_employee";
+    public static final String BOTTOM_SHEET_CONSTANTS = "BottomSheetConstants";
+    public static final String ERROR_INSERT_EXPIRED_URL = "ERROR_INSERT_EXPIRED_URL";
+    public static final String USERNAME_MISSING = "username_missing_during_update";
+
+    // Classes referencing these strings
+    public static final String SCREENSHOT_NOTIFICATION_MANAGER = "ScreenshotNotificationManager";
+    public static final String JSON_FACTORY = "Non-blocking source not (yet?) supported for this format (%s)";
+
+    private static final String[] METHOD_ANCHORS = {
+            MARK_THREAD_SEEN, TYPING_INDICATOR, VISUAL_ITEM_SEEN, MEDIA_SEEN, SPONSORED_INSERT_ITEM,
+            DISABLE_VIDEO_AUTOPLAY, IS_EMPLOYEE, BOTTOM_SHEET_CONSTANTS, ERROR_INSERT_EXPIRED_URL, USERNAME_MISSING
+    };
+    private static final String[] CLASS_ANCHORS = {
+            SCREENSHOT_NOTIFICATION_MANAGER, IS_EMPLOYEE, JSON_FACTORY
+    };
+
+    private static Map<String, List<MethodData>> methods;
+    private static Map<String, List<ClassData>> classes;
+
+    // Anchors requested by the resolver running on this thread, see DiscoveryCache
+    private static final ThreadLocal<Set<String>> requested = new ThreadLocal<>();
+
+    /**
+     * Records every anchor requested on this thread into {@code anchors} until
+     * {@link #stopTracking()}.
+     */
+    static void startTracking(Set<String> anchors) {
+        requested.set(anchors);
+    }
+
+    static void stopTracking() {
+        requested.remove();
+    }
+
+    /**
+     * Returns the methods referencing {@code anchor}, running the batched query on first use.
+     */
+    public static List<MethodData> methods(DexKitBridge bridge, String anchor) {
+        track(anchor);
+        Map<String, List<MethodData>> results = ensureMethods(bridge);
+        List<MethodData> found = results.get(anchor);
+        if (found != null) {
+            return found;
+        }
+        // Not part of the batch (or the batch failed) → single query
+        return bridge.findMethod(FindMethod.create()
+                .matcher(MethodMatcher.create().usingStrings(anchor)));
+    }
+
+    /**
+     * Returns the classes referencing {@code anchor}, running the batched query on first use.
+     */
+    public static List<ClassData> classes(DexKitBridge bridge, String anchor) {
+        track(anchor);
+        Map<String, List<ClassData>> results = ensureClasses(bridge);
+        List<ClassData> found = results.get(anchor);
+        if (found != null) {
+            return found;
+        }
+        return bridge.findClass(FindClass.create()
+                .matcher(ClassMatcher.create().usingStrings(anchor)));
+    }
+
+    /**
+     * Drops the shared results so the MethodData/ClassData objects can be collected.
+     */
+    public static synchronized void clear() {
+        methods = null;
+        classes = null;
+    }
+
+    private static void track(String anchor) {
+        Set<String> anchors = requested.get();
+        if (anchors != null) {
+            anchors.add(anchor);
+        }
+    }
+
+    private static synchronized Map<String, List<MethodData>> ensureMethods(DexKitBridge bridge) {
+        if (methods != null) {
+            return methods;
+        }
+
+        Map<String, List<MethodData>> results = new HashMap<>();
+        try (StartupTracer.Section ignored = StartupTracer.section(StartupTracer.MODULE, "methodAnchors")) {
+            Map<String, ? extends List<MethodData>> found = bridge.batchFindMethodUsingStrings(
+                    BatchFindMethodUsingStrings.create().groups(groups(METHOD_ANCHORS)));
+            for (String anchor : METHOD_ANCHORS) {
+                List<MethodData> list = found.get(anchor);
+                results.put(anchor, list != null ? list : Collections.emptyList());
+            }
+            DiscoveryLog.log("(InstaEclipse | Discovery): ✅ Resolved " + METHOD_ANCHORS.length + " method anchors in one pass");
+        } catch (Throwable t) {
+            DiscoveryLog.log("(InstaEclipse | Discovery): ❌ Batched method anchors failed, using single queries: " + t.getMessage());
+            results.clear();
+        }
+        methods = results;
+        return results;
+    }
+
+    private static synchronized Map<String, List<ClassData>> ensureClasses(DexKitBridge bridge) {
+        if (classes != null) {
+            return classes;
+        }
+
+        Map<String, List<ClassData>> results = new HashMap<>();
+        try (StartupTracer.Section ignored = StartupTracer.section(StartupTracer.MODULE, "classAnchors")) {
+            Map<String, ? extends List<ClassData>> found = bridge.batchFindClassUsingStrings(
+                    BatchFindClassUsingStrings.create().groups(groups(CLASS_ANCHORS)));
+            for (String anchor : CLASS_ANCHORS) {
+                List<ClassData> list = found.get(anchor);
+                results.put(anchor, list != null ? list : Collections.emptyList());
+            }
+            DiscoveryLog.log("(InstaEclipse | Discovery): ✅ Resolved " + CLASS_ANCHORS.length + " class anchors in one pass");
+        } catch (Throwable t) {
+            DiscoveryLog.log("(InstaEclipse | Discovery): ❌ Batched class anchors failed, using single queries: " + t.getMessage());
+            results.clear();
+        }
+        classes = results;
+        return results;
+    }
+
+    // One search group per anchor, named after the anchor itself
+    private static Map<String, Collection<String>> groups(String[] anchors) {
+        Map<String, Collection<String>> groups = new LinkedHashMap<>();
+        for (String anchor : anchors) {
+            groups.put(anchor, Collections.singletonList(anchor));
+        }
+        return groups;
+    }
+}
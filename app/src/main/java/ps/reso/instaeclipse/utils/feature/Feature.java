@@ -0,0 +1,40 @@
+package ps.reso.instaeclipse.utils.feature;
+
+/**
+ * The features listed in the loaded toast, each with the flag that enables it. The ordinal is the
+ * feature's bit in {@link FeatureStatusTracker}.
+ */
+public enum Feature {
+    DEV_OPTIONS("DevOptions", FlagSnapshot.DEV_ENABLED),
+    GHOST_SEEN("GhostSeen", FlagSnapshot.GHOST_SEEN),
+    GHOST_TYPING("GhostTyping", FlagSnapshot.GHOST_TYPING),
+    GHOST_SCREENSHOT("GhostScreenshot", FlagSnapshot.GHOST_SCREENSHOT),
+    GHOST_VIEW_ONCE("GhostViewOnce", FlagSnapshot.GHOST_VIEW_ONCE),
+    GHOST_STORIES("GhostStories", FlagSnapshot.GHOST_STORY),
+    GHOST_LIVE("GhostLive", FlagSnapshot.GHOST_LIVE),
+    AD_BLOCKER("AdBlocker", FlagSnapshot.AD_BLOCK),
+    // Strips ads from feed responses; hooked separately from AdBlocker, so it reports on its own
+    RESPONSE_FILTER("ResponseFilter", FlagSnapshot.AD_BLOCK),
+    SHOW_FOLLOWER_TOAST("ShowFollowerToast", FlagSnapshot.SHOW_FOLLOWER_TOAST),
+    SHOW_STORY_HIDDEN_TOAST("ShowStoryHiddenToast", FlagSnapshot.SHOW_STORY_HIDDEN_TOAST),
+    DISABLE_TRACKING_LINKS("DisableTrackingLinks", FlagSnapshot.DISABLE_TRACKING_LINKS);
+
+    private static final Feature[] ALL = values();
+
+    /**
+     * Name shown to the user; also names the feature's entry in the discovery scheduler.
+     */
+    public final String displayName;
+    public final long flag;
+    final long bit;
+
+    Feature(String displayName, long flag) {
+        this.displayName = displayName;
+        this.flag = flag;
+        this.bit = 1L << ordinal();
+    }
+
+    static Feature[] all() {
+        return ALL;
+    }
+}
@@ -1,11 +1,22 @@
 package ps.reso.instaeclipse.utils.feature;
 
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Feature settings. The fields are the editable copy, written by the settings UI and
+ * {@link ps.reso.instaeclipse.utils.core.SettingsManager}; after changing them, call
+ * {@link #publish()}. Hooks read the immutable {@link #snapshot()} instead of the fields.
+ * Published flags reach Instagram's other processes through {@link LiveFlags}; values adopted
+ * from them are written back to the fields on the main thread only.
+ */
 public class FeatureFlags {
 
     // Dev Options
     public static boolean isDevEnabled = false;
     public static boolean isImportingConfig = false;
     public static boolean isExportingConfig = false;
+    public static boolean recordTraffic = false;
 
     // Ghost Mode
     public static boolean isGhostModeEnabled = false;
@@ -34,6 +45,7 @@ public class FeatureFlags {
     public static boolean disableReelsExceptDM = false;
     public static boolean disableExplore = false;
     public static boolean disableComments = false;
+    public static boolean limitPrefetchOnMetered = false;
 
     // Ads and Analytics
     public static boolean isAdBlockEnabled = false;
@@ -47,6 +59,116 @@ public class FeatureFlags {
     public static boolean showFollowerToast = false;
     public static boolean showStoryHiddenToast = false;
     public static boolean showFeatureToasts = false;
+    public static boolean loadFeaturesInBackground = false;
+    public static boolean dataSaver = false;
+    public static int dataSaverMaxWidth = 720;
+
+    private static volatile FlagSnapshot published = FlagSnapshot.capture();
+    // What hooks in this process see: the published flags minus the suspended ones
+    private static volatile FlagSnapshot snapshot = published;
+    private static volatile long suspended;
+    // The word the fields were last captured into or applied from
+    private static long fieldsWord = published.word;
+    private static final Runnable APPLY = FeatureFlags::applyPublished;
+    private static Handler mainHandler;
+
+    /**
+     * The flags as of the last {@link #publish()} in any process, less those {@link #suspend}ed in
+     * this one; read it once per hook invocation.
+     */
+    public static FlagSnapshot snapshot() {
+        FlagSnapshot current = snapshot;
+        long shared = LiveFlags.read();
+        if (shared != 0 && shared != published.word) {
+            return adopt(shared);
+        }
+        return current;
+    }
+
+    /**
+     * The flags as of the last {@link #publish()} in any process, ignoring suspensions; what
+     * should be persisted.
+     */
+    public static FlagSnapshot published() {
+        snapshot();
+        return published;
+    }
+
+    /**
+     * Makes the current field values visible to hooks on every thread and in every process.
+     */
+    public static synchronized void publish() {
+        FlagSnapshot next = FlagSnapshot.capture();
+        fieldsWord = next.word;
+        published = next;
+        snapshot = withoutSuspended(next);
+        LiveFlags.write(next.word);
+    }
+
+    /**
+     * Turns {@code flags} off for hooks in this process until {@link #resume}, e.g. to let one
+     * user action through. Suspensions are never published or persisted, and the fields keep
+     * their values.
+     */
+    public static synchronized void suspend(long flags) {
+        suspended |= flags;
+        snapshot = withoutSuspended(published);
+    }
+
+    public static synchronized void resume(long flags) {
+        suspended &= ~flags;
+        snapshot = withoutSuspended(published);
+    }
+
+    /**
+     * At startup: takes the flags other processes of this session are running with, if any, else
+     * publishes the fields as loaded from preferences.
+     */
+    public static synchronized void sync() {
+        long shared = LiveFlags.read();
+        if (shared == 0) {
+            publish();
+            return;
+        }
+        FlagSnapshot next = FlagSnapshot.fromWord(shared);
+        next.apply();
+        fieldsWord = next.word;
+        published = next;
+        snapshot = withoutSuspended(next);
+    }
+
+    private static FlagSnapshot withoutSuspended(FlagSnapshot flags) {
+        long mask = suspended;
+        return (flags.bits & mask) == 0 ? flags : FlagSnapshot.fromWord(flags.word & ~mask);
+    }
+
+    // Another process published. Hooks see it at once; the fields follow on the main thread
+    private static synchronized FlagSnapshot adopt(long shared) {
+        FlagSnapshot current = published;
+        if (current.word == shared) {
+            return snapshot;
+        }
+        FlagSnapshot next = FlagSnapshot.fromWord(shared);
+        published = next;
+        snapshot = withoutSuspended(next);
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        mainHandler.removeCallbacks(APPLY);
+        mainHandler.post(APPLY);
+        FeatureManager.refreshFeatureStatus(current.bits ^ next.bits);
+        return snapshot;
+    }
 
+    // The settings UI owns the fields, so they are only written on its thread, and only when it
+    // has no unpublished edits; otherwise its next publish() wins
+    private static synchronized void applyPublished() {
+        FlagSnapshot target = published;
+        if (target.word == fieldsWord || FlagSnapshot.capture().word != fieldsWord) {
+            return;
+        }
+        target.apply();
+        fieldsWord = target.word;
+    }
 
 }
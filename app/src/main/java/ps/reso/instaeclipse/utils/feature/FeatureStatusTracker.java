@@ -1,33 +1,144 @@
 package ps.reso.instaeclipse.utils.feature;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Which {@link Feature}s are enabled, whether their hooks have fired, and which are still being
+ * discovered in the background.
+ * <p>
+ * The three bitsets live in one AtomicLong, {@value #LANE_BITS} bits each (enabled, then hooked,
+ * then pending), so they always change together. {@link #setHooked} runs on hot paths (every request, every dev-options
+ * getter): once the bit is set it is a single read with no write, so repeated calls never contend.
+ * Changes are pushed to {@link Listener}s instead of being polled.
+ */
 public class FeatureStatusTracker {
-    private static final Map<String, Boolean> features = Collections.synchronizedMap(new HashMap<>());
 
-    public static void setEnabled(String name) {
-        features.put(name, false); // default: not hooked
+    public interface Listener {
+        void onStatusChanged(Feature feature, boolean enabled, boolean hooked, boolean pending);
     }
 
-    public static void setDisabled(String name) {
-        features.remove(name);
+    // Room for this many features; FeatureStatusTrackerTest checks Feature stays within it
+    static final int LANE_BITS = 21;
+    private static final long LANE_MASK = (1L << LANE_BITS) - 1;
+    private static final int HOOKED_SHIFT = LANE_BITS;
+    private static final int PENDING_SHIFT = 2 * LANE_BITS;
+
+    private static final AtomicLong state = new AtomicLong();
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Marks {@code feature} enabled and not hooked yet.
+     */
+    public static void setEnabled(Feature feature) {
+        long enabled = feature.bit;
+        long hooked = feature.bit << HOOKED_SHIFT;
+        update(feature, enabled | hooked, enabled);
     }
 
+    public static void setDisabled(Feature feature) {
+        update(feature, feature.bit | feature.bit << HOOKED_SHIFT, 0);
+    }
 
-    public static void setHooked(String name) {
-        if (features.containsKey(name)) {
-            features.put(name, true);
+    /**
+     * Marks an enabled feature's hook as fired; ignored for disabled features.
+     */
+    public static void setHooked(Feature feature) {
+        long hooked = feature.bit << HOOKED_SHIFT;
+        long current = state.get();
+        if ((current & hooked) != 0 || (current & feature.bit) == 0) {
+            return;
+        }
+        while (!state.compareAndSet(current, current | hooked)) {
+            current = state.get();
+            if ((current & hooked) != 0 || (current & feature.bit) == 0) {
+                return;
+            }
         }
+        notifyListeners(feature, current | hooked);
     }
 
-    public static Map<String, Boolean> getStatus() {
-        return features;
+    public static boolean isEnabled(Feature feature) {
+        return (state.get() & feature.bit) != 0;
+    }
+
+    public static boolean isHooked(Feature feature) {
+        return (state.get() & feature.bit << HOOKED_SHIFT) != 0;
+    }
+
+    /**
+     * The enabled features, in declaration order.
+     */
+    public static List<Feature> enabledFeatures() {
+        long current = state.get();
+        List<Feature> enabled = new ArrayList<>();
+        for (Feature feature : Feature.all()) {
+            if ((current & feature.bit) != 0) enabled.add(feature);
+        }
+        return enabled;
     }
 
     public static boolean hasEnabledFeatures() {
-        return !features.isEmpty();
+        return (state.get() & LANE_MASK) != 0;
+    }
+
+    /**
+     * Whether any enabled feature is still pending.
+     */
+    public static boolean hasPendingFeatures() {
+        long current = state.get();
+        return (current & current >>> PENDING_SHIFT & LANE_MASK) != 0;
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
     }
 
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Marks {@code feature} as still being discovered in the background.
+     */
+    public static void setPending(Feature feature) {
+        long pending = feature.bit << PENDING_SHIFT;
+        update(feature, pending, pending);
+    }
+
+    /**
+     * Marks {@code feature}'s discovery as finished, whether or not its hook was installed.
+     */
+    public static void setResolved(Feature feature) {
+        update(feature, feature.bit << PENDING_SHIFT, 0);
+    }
+
+    public static boolean isPending(Feature feature) {
+        return (state.get() & feature.bit << PENDING_SHIFT) != 0;
+    }
+
+    // Sets the bits in mask to value; notifies only if that changed anything
+    private static void update(Feature feature, long mask, long value) {
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = (current & ~mask) | value;
+            if (next == current) {
+                return;
+            }
+        } while (!state.compareAndSet(current, next));
+        notifyListeners(feature, next);
+    }
+
+    private static void notifyListeners(Feature feature, long newState) {
+        boolean enabled = (newState & feature.bit) != 0;
+        boolean hooked = (newState & feature.bit << HOOKED_SHIFT) != 0;
+        boolean pending = (newState & feature.bit << PENDING_SHIFT) != 0;
+        for (Listener listener : listeners) {
+            listener.onStatusChanged(feature, enabled, hooked, pending);
+        }
+    }
 }
@@ -0,0 +1,233 @@
+package ps.reso.instaeclipse.utils.feature;
+
+/**
+ * An immutable copy of {@link FeatureFlags}, one bit per boolean flag.
+ * <p>
+ * Hooks read {@link FeatureFlags#snapshot()} once per invocation and test bits on it, so every
+ * flag they look at comes from the same moment, even while the UI is halfway through changing
+ * several of them.
+ * <p>
+ * The whole snapshot packs into one {@link #word}, which {@link LiveFlags} shares between
+ * processes: flag bits 0-47, dataSaverMaxWidth in bits 48-60, bit 63 set.
+ */
+public final class FlagSnapshot {
+
+    // Dev Options
+    public static final long DEV_ENABLED = 1L;
+    public static final long RECORD_TRAFFIC = 1L << 1;
+
+    // Ghost Mode
+    public static final long GHOST_MODE = 1L << 2;
+    public static final long GHOST_SEEN = 1L << 3;
+    public static final long GHOST_TYPING = 1L << 4;
+    public static final long GHOST_SCREENSHOT = 1L << 5;
+    public static final long GHOST_VIEW_ONCE = 1L << 6;
+    public static final long GHOST_STORY = 1L << 7;
+    public static final long GHOST_LIVE = 1L << 8;
+
+    // Quick toggle selection
+    public static final long QUICK_TOGGLE_SEEN = 1L << 9;
+    public static final long QUICK_TOGGLE_TYPING = 1L << 10;
+    public static final long QUICK_TOGGLE_SCREENSHOT = 1L << 11;
+    public static final long QUICK_TOGGLE_VIEW_ONCE = 1L << 12;
+    public static final long QUICK_TOGGLE_STORY = 1L << 13;
+    public static final long QUICK_TOGGLE_LIVE = 1L << 14;
+
+    // Distraction Free
+    public static final long EXTREME_MODE = 1L << 15;
+    public static final long DISTRACTION_FREE = 1L << 16;
+    public static final long DISABLE_STORIES = 1L << 17;
+    public static final long DISABLE_FEED = 1L << 18;
+    public static final long DISABLE_REELS = 1L << 19;
+    public static final long DISABLE_REELS_EXCEPT_DM = 1L << 20;
+    public static final long DISABLE_EXPLORE = 1L << 21;
+    public static final long DISABLE_COMMENTS = 1L << 22;
+    public static final long LIMIT_PREFETCH_ON_METERED = 1L << 23;
+
+    // Ads and Analytics
+    public static final long AD_BLOCK = 1L << 24;
+    public static final long ANALYTICS_BLOCKED = 1L << 25;
+    public static final long DISABLE_TRACKING_LINKS = 1L << 26;
+
+    // Misc
+    public static final long MISC_ENABLED = 1L << 27;
+    public static final long DISABLE_STORY_FLIPPING = 1L << 28;
+    public static final long DISABLE_VIDEO_AUTOPLAY = 1L << 29;
+    public static final long SHOW_FOLLOWER_TOAST = 1L << 30;
+    public static final long SHOW_STORY_HIDDEN_TOAST = 1L << 31;
+    public static final long SHOW_FEATURE_TOASTS = 1L << 32;
+    public static final long LOAD_FEATURES_IN_BACKGROUND = 1L << 33;
+    public static final long DATA_SAVER = 1L << 34;
+
+    // Preference key (and FeatureFlags field) of each bit, by bit position
+    private static final String[] KEYS = {
+            "isDevEnabled",
+            "recordTraffic",
+            "isGhostModeEnabled",
+            "isGhostSeen",
+            "isGhostTyping",
+            "isGhostScreenshot",
+            "isGhostViewOnce",
+            "isGhostStory",
+            "isGhostLive",
+            "quickToggleSeen",
+            "quickToggleTyping",
+            "quickToggleScreenshot",
+            "quickToggleViewOnce",
+            "quickToggleStory",
+            "quickToggleLive",
+            "isExtremeMode",
+            "isDistractionFree",
+            "disableStories",
+            "disableFeed",
+            "disableReels",
+            "disableReelsExceptDM",
+            "disableExplore",
+            "disableComments",
+            "limitPrefetchOnMetered",
+            "isAdBlockEnabled",
+            "isAnalyticsBlocked",
+            "disableTrackingLinks",
+            "isMiscEnabled",
+            "disableStoryFlipping",
+            "disableVideoAutoPlay",
+            "showFollowerToast",
+            "showStoryHiddenToast",
+            "showFeatureToasts",
+            "loadFeaturesInBackground",
+            "dataSaver"
+    };
+
+    private static final long FLAG_MASK = (1L << 48) - 1;
+    private static final int WIDTH_SHIFT = 48;
+    private static final long WIDTH_MASK = (1L << 13) - 1;
+    // Distinguishes a published word from an empty file
+    private static final long PUBLISHED = 1L << 63;
+
+    public final long bits;
+    public final int dataSaverMaxWidth;
+    public final long word;
+
+    private FlagSnapshot(long bits, int dataSaverMaxWidth) {
+        this.bits = bits;
+        this.dataSaverMaxWidth = dataSaverMaxWidth;
+        this.word = PUBLISHED | (bits & FLAG_MASK) | ((dataSaverMaxWidth & WIDTH_MASK) << WIDTH_SHIFT);
+    }
+
+    public static FlagSnapshot fromWord(long word) {
+        return new FlagSnapshot(word & FLAG_MASK, (int) ((word >>> WIDTH_SHIFT) & WIDTH_MASK));
+    }
+
+    public boolean has(long flag) {
+        return (bits & flag) != 0;
+    }
+
+    /**
+     * True if any of the given flags is set.
+     */
+    public boolean hasAny(long flags) {
+        return (bits & flags) != 0;
+    }
+
+    public static int flagCount() {
+        return KEYS.length;
+    }
+
+    /**
+     * The preference key of the flag at bit position {@code bit}.
+     */
+    public static String key(int bit) {
+        return KEYS[bit];
+    }
+
+    /**
+     * A snapshot of the current {@link FeatureFlags} fields, whether or not they were published.
+     */
+    public static FlagSnapshot capture() {
+        long bits = 0;
+        if (FeatureFlags.isDevEnabled) bits |= DEV_ENABLED;
+        if (FeatureFlags.recordTraffic) bits |= RECORD_TRAFFIC;
+
+        if (FeatureFlags.isGhostModeEnabled) bits |= GHOST_MODE;
+        if (FeatureFlags.isGhostSeen) bits |= GHOST_SEEN;
+        if (FeatureFlags.isGhostTyping) bits |= GHOST_TYPING;
+        if (FeatureFlags.isGhostScreenshot) bits |= GHOST_SCREENSHOT;
+        if (FeatureFlags.isGhostViewOnce) bits |= GHOST_VIEW_ONCE;
+        if (FeatureFlags.isGhostStory) bits |= GHOST_STORY;
+        if (FeatureFlags.isGhostLive) bits |= GHOST_LIVE;
+
+        if (FeatureFlags.quickToggleSeen) bits |= QUICK_TOGGLE_SEEN;
+        if (FeatureFlags.quickToggleTyping) bits |= QUICK_TOGGLE_TYPING;
+        if (FeatureFlags.quickToggleScreenshot) bits |= QUICK_TOGGLE_SCREENSHOT;
+        if (FeatureFlags.quickToggleViewOnce) bits |= QUICK_TOGGLE_VIEW_ONCE;
+        if (FeatureFlags.quickToggleStory) bits |= QUICK_TOGGLE_STORY;
+        if (FeatureFlags.quickToggleLive) bits |= QUICK_TOGGLE_LIVE;
+
+        if (FeatureFlags.isExtremeMode) bits |= EXTREME_MODE;
+        if (FeatureFlags.isDistractionFree) bits |= DISTRACTION_FREE;
+        if (FeatureFlags.disableStories) bits |= DISABLE_STORIES;
+        if (FeatureFlags.disableFeed) bits |= DISABLE_FEED;
+        if (FeatureFlags.disableReels) bits |= DISABLE_REELS;
+        if (FeatureFlags.disableReelsExceptDM) bits |= DISABLE_REELS_EXCEPT_DM;
+        if (FeatureFlags.disableExplore) bits |= DISABLE_EXPLORE;
+        if (FeatureFlags.disableComments) bits |= DISABLE_COMMENTS;
+        if (FeatureFlags.limitPrefetchOnMetered) bits |= LIMIT_PREFETCH_ON_METERED;
+
+        if (FeatureFlags.isAdBlockEnabled) bits |= AD_BLOCK;
+        if (FeatureFlags.isAnalyticsBlocked) bits |= ANALYTICS_BLOCKED;
+        if (FeatureFlags.disableTrackingLinks) bits |= DISABLE_TRACKING_LINKS;
+
+        if (FeatureFlags.isMiscEnabled) bits |= MISC_ENABLED;
+        if (FeatureFlags.disableStoryFlipping) bits |= DISABLE_STORY_FLIPPING;
+        if (FeatureFlags.disableVideoAutoPlay) bits |= DISABLE_VIDEO_AUTOPLAY;
+        if (FeatureFlags.showFollowerToast) bits |= SHOW_FOLLOWER_TOAST;
+        if (FeatureFlags.showStoryHiddenToast) bits |= SHOW_STORY_HIDDEN_TOAST;
+        if (FeatureFlags.showFeatureToasts) bits |= SHOW_FEATURE_TOASTS;
+        if (FeatureFlags.loadFeaturesInBackground) bits |= LOAD_FEATURES_IN_BACKGROUND;
+        if (FeatureFlags.dataSaver) bits |= DATA_SAVER;
+
+        return new FlagSnapshot(bits, FeatureFlags.dataSaverMaxWidth);
+    }
+
+    /**
+     * Writes this snapshot back into the {@link FeatureFlags} fields.
+     */
+    void apply() {
+        FeatureFlags.isDevEnabled = has(DEV_ENABLED);
+        FeatureFlags.recordTraffic = has(RECORD_TRAFFIC);
+        FeatureFlags.isGhostModeEnabled = has(GHOST_MODE);
+        FeatureFlags.isGhostSeen = has(GHOST_SEEN);
+        FeatureFlags.isGhostTyping = has(GHOST_TYPING);
+        FeatureFlags.isGhostScreenshot = has(GHOST_SCREENSHOT);
+        FeatureFlags.isGhostViewOnce = has(GHOST_VIEW_ONCE);
+        FeatureFlags.isGhostStory = has(GHOST_STORY);
+        FeatureFlags.isGhostLive = has(GHOST_LIVE);
+        FeatureFlags.quickToggleSeen = has(QUICK_TOGGLE_SEEN);
+        FeatureFlags.quickToggleTyping = has(QUICK_TOGGLE_TYPING);
+        FeatureFlags.quickToggleScreenshot = has(QUICK_TOGGLE_SCREENSHOT);
+        FeatureFlags.quickToggleViewOnce = has(QUICK_TOGGLE_VIEW_ONCE);
+        FeatureFlags.quickToggleStory = has(QUICK_TOGGLE_STORY);
+        FeatureFlags.quickToggleLive = has(QUICK_TOGGLE_LIVE);
+        FeatureFlags.isExtremeMode = has(EXTREME_MODE);
+        FeatureFlags.isDistractionFree = has(DISTRACTION_FREE);
+        FeatureFlags.disableStories = has(DISABLE_STORIES);
+        FeatureFlags.disableFeed = has(DISABLE_FEED);
+        FeatureFlags.disableReels = has(DISABLE_REELS);
+        FeatureFlags.disableReelsExceptDM = has(DISABLE_REELS_EXCEPT_DM);
+        FeatureFlags.disableExplore = has(DISABLE_EXPLORE);
+        FeatureFlags.disableComments = has(DISABLE_COMMENTS);
+        FeatureFlags.limitPrefetchOnMetered = has(LIMIT_PREFETCH_ON_METERED);
+        FeatureFlags.isAdBlockEnabled = has(AD_BLOCK);
+        FeatureFlags.isAnalyticsBlocked = has(ANALYTICS_BLOCKED);
+        FeatureFlags.disableTrackingLinks = has(DISABLE_TRACKING_LINKS);
+        FeatureFlags.isMiscEnabled = has(MISC_ENABLED);
+        FeatureFlags.disableStoryFlipping = has(DISABLE_STORY_FLIPPING);
+        FeatureFlags.disableVideoAutoPlay = has(DISABLE_VIDEO_AUTOPLAY);
+        FeatureFlags.showFollowerToast = has(SHOW_FOLLOWER_TOAST);
+        FeatureFlags.showStoryHiddenToast = has(SHOW_STORY_HIDDEN_TOAST);
+        FeatureFlags.showFeatureToasts = has(SHOW_FEATURE_TOASTS);
+        FeatureFlags.loadFeaturesInBackground = has(LOAD_FEATURES_IN_BACKGROUND);
+        FeatureFlags.dataSaver = has(DATA_SAVER);
+        FeatureFlags.dataSaverMaxWidth = dataSaverMaxWidth;
+    }
+}
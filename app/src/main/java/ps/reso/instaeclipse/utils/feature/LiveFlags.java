@@ -0,0 +1,103 @@
+package ps.reso.instaeclipse.utils.feature;
+
+import android.app.Application;
+import android.content.Context;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * The published flags, shared by all of Instagram's processes through a memory-mapped file.
+ * <p>
+ * SharedPreferences are read once per process, so a setting changed in the main process used to
+ * reach the network and other secondary processes only after a restart. The published
+ * {@link FlagSnapshot} fits in one 64-bit word; every process maps files/instaeclipse/live_flags
+ * and {@link FeatureFlags#snapshot()} compares that word with its own on each read. A change made
+ * in any process is therefore seen by the others on their next hook call, without locks or
+ * polling.
+ * <p>
+ * The word only lives as long as a session. SharedPreferences remain the persistent copy, so
+ * the state is cleared when the main process starts, and when the file was written before the
+ * last reboot; processes then publish what their preferences hold.
+ * <p>
+ * Layout, native byte order: a magic/version long, the boot the state belongs to, then the state
+ * word (0 = nothing published). An aligned 8-byte access is atomic on the ABIs Instagram ships,
+ * so readers never see half a write.
+ */
+public class LiveFlags {
+
+    private static final String FILE_PATH = "instaeclipse/live_flags";
+    // "IELF" + layout version; bump whenever FlagSnapshot's bit assignment changes
+    private static final long MAGIC = 0x49454C46_00000002L;
+    private static final String BOOT_ID_PATH = "/proc/sys/kernel/random/boot_id";
+    private static final int MAGIC_OFFSET = 0;
+    private static final int SESSION_OFFSET = 8;
+    private static final int STATE_OFFSET = 16;
+    private static final int SIZE = 24;
+
+    private static volatile MappedByteBuffer buffer;
+
+    /**
+     * Maps the shared file. Until this succeeds, reads return 0 and writes are dropped.
+     */
+    public static synchronized void init(Context context) {
+        if (buffer != null) {
+            return;
+        }
+        File file = new File(context.getFilesDir(), FILE_PATH);
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            XposedBridge.log("(InstaEclipse | LiveFlags): ❌ Cannot create " + dir);
+            return;
+        }
+        long session = bootSession();
+        boolean mainProcess = context.getPackageName().equals(Application.getProcessName());
+        // The mapping stays valid after the channel is closed
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+            mapped.order(ByteOrder.nativeOrder());
+            if (mainProcess || mapped.getLong(MAGIC_OFFSET) != MAGIC || mapped.getLong(SESSION_OFFSET) != session) {
+                // The app (re)starting, a new file, an earlier boot or another flag layout
+                mapped.putLong(STATE_OFFSET, 0);
+                mapped.putLong(SESSION_OFFSET, session);
+                mapped.putLong(MAGIC_OFFSET, MAGIC);
+            }
+            buffer = mapped;
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse | LiveFlags): ❌ Cannot map " + file + ": " + t.getMessage());
+        }
+    }
+
+    // Identifies the current boot; 0 if it cannot be read, leaving the main process to reset
+    private static long bootSession() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(BOOT_ID_PATH))) {
+            UUID id = UUID.fromString(reader.readLine().trim());
+            return id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+        } catch (Throwable t) {
+            return 0;
+        }
+    }
+
+    /**
+     * The word last published by any process this session, or 0.
+     */
+    static long read() {
+        MappedByteBuffer mapped = buffer;
+        return mapped != null ? mapped.getLong(STATE_OFFSET) : 0;
+    }
+
+    static void write(long word) {
+        MappedByteBuffer mapped = buffer;
+        if (mapped != null) {
+            mapped.putLong(STATE_OFFSET, word);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package ps.reso.instaeclipse.utils.trace;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import com.google.gson.Gson;
+
+import org.luckypray.dexkit.wrap.DexMethod;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.robv.android.xposed.XC_MethodHook;
+import de.robv.android.xposed.XposedBridge;
+import ps.reso.instaeclipse.utils.feature.FeatureStatusTracker;
+
+/**
+ * Per-phase startup timing.
+ * <p>
+ * Every section is emitted as an android.os.Trace section (visible in Perfetto as
+ * "InstaEclipse:&lt;scope&gt;:&lt;phase&gt;") and accumulated per scope and phase. Scopes are
+ * feature names, or "Module" for process-wide phases such as loading libdexkit.so. The totals
+ * are written to files/instaeclipse/startup_trace.json in the host (startup_trace_&lt;process&gt;.json
+ * for secondary processes) and summarized in the "InstaEclipse Loaded" toast. The report also
+ * records when each feature's hook first fired, as reported by {@link FeatureStatusTracker}.
+ */
+public class StartupTracer {
+
+    public static final String MODULE = "Module";
+
+    private static final String REPORT_DIR = "instaeclipse";
+    private static final String REPORT_FILE = "startup_trace";
+    private static final int MAX_SECTION_NAME = 127; // android.os.Trace limit
+
+    // scope -> phase -> {count, total nanos}
+    private static final Map<String, Map<String, Phase>> phases = new ConcurrentHashMap<>();
+    private static File reportFile;
+    private static String process;
+    private static String profile;
+    private static long attachStartNs;
+    private static volatile long attachMs = -1;
+    private static volatile long discoveryMs = -1;
+    // label -> {VmRSS kB, native heap kB}
+    private static final Map<String, long[]> memory = new ConcurrentHashMap<>();
+    // feature -> ms after attach when its hook first fired
+    private static final Map<String, Long> firstHookMs = new ConcurrentHashMap<>();
+
+    private static class Phase {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNs = new AtomicLong();
+    }
+
+    /**
+     * Marks the start of Application.attach; all later timings are relative to it.
+     */
+    public static void init(Context context, String processName) {
+        attachStartNs = SystemClock.elapsedRealtimeNanos();
+        process = processName;
+
+        // Each process writes its own report; the main one keeps the plain name
+        int separator = processName != null ? processName.indexOf(':') : -1;
+        String suffix = separator >= 0 ? "_" + processName.substring(separator + 1) : "";
+        reportFile = new File(new File(context.getFilesDir(), REPORT_DIR), REPORT_FILE + suffix + ".json");
+
+        FeatureStatusTracker.addListener((feature, enabled, hooked, pending) -> {
+            if (hooked) {
+                firstHookMs.putIfAbsent(feature.displayName, elapsedMsSinceAttach());
+            }
+        });
+    }
+
+    /**
+     * Records which {@link ps.reso.instaeclipse.utils.core.ProcessProfile} this process applied.
+     */
+    public static void setProfile(String name) {
+        profile = name;
+    }
+
+    public static Section section(String scope, String phase) {
+        return new Section(scope, phase);
+    }
+
+    public static Method getMethodInstance(String scope, DexMethod method, ClassLoader classLoader) {
+        try (Section ignored = section(scope, "getMethodInstance")) {
+            return method.getMethodInstance(classLoader);
+        }
+    }
+
+    public static XC_MethodHook.Unhook hookMethod(String scope, Member method, XC_MethodHook callback) {
+        try (Section ignored = section(scope, "hookMethod")) {
+            return XposedBridge.hookMethod(method, callback);
+        }
+    }
+
+    /**
+     * Called when the attach hook returns, i.e. when Instagram's startup can continue.
+     */
+    public static void markAttachDone() {
+        attachMs = elapsedMsSinceAttach();
+    }
+
+    /**
+     * Called once every feature has been resolved and hooked.
+     */
+    public static void markDiscoveryDone() {
+        discoveryMs = elapsedMsSinceAttach();
+    }
+
+    /**
+     * Records the process RSS and allocated native heap under {@code label}.
+     */
+    public static void recordMemory(String label) {
+        long rssKb = readRssKb();
+        long nativeKb = Debug.getNativeHeapAllocatedSize() / 1024;
+        memory.put(label, new long[]{rssKb, nativeKb});
+        XposedBridge.log("(InstaEclipse | Trace): " + label + " RSS " + rssKb + " kB, native heap " + nativeKb + " kB");
+    }
+
+    public static void writeReport() {
+        if (reportFile == null) {
+            return;
+        }
+
+        try {
+            File parent = reportFile.getParentFile();
+            if (parent != null && !parent.exists()) parent.mkdirs();
+
+            Report report = new Report();
+            report.process = process;
+            report.profile = profile;
+            report.attachMs = attachMs;
+            report.discoveryMs = discoveryMs;
+            report.phases = snapshot();
+            report.memoryKb = new TreeMap<>(memory);
+            report.firstHookMs = new TreeMap<>(firstHookMs);
+
+            try (Writer writer = new FileWriter(reportFile, false)) {
+                new Gson().toJson(report, writer);
+            }
+            XposedBridge.log("(InstaEclipse | Trace): 💾 Startup report written to " + reportFile.getPath());
+        } catch (Throwable t) {
+            XposedBridge.log("(InstaEclipse | Trace): ❌ Failed to write startup report: " + t.getMessage());
+        }
+    }
+
+    /**
+     * A few lines for the loaded toast: attach and discovery time, shared DexKit time (library,
+     * bridge, string anchors), the slowest feature and the RSS freed by closing the bridge.
+     */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder("⏱ attach ").append(attachMs).append("ms");
+        if (discoveryMs >= 0) {
+            sb.append(", hooks ready ").append(discoveryMs).append("ms");
+        } else {
+            sb.append(", hooks loading");
+        }
+
+        double dexKitMs = 0;
+        String slowest = null;
+        double slowestMs = 0;
+        for (Map.Entry<String, Map<String, Double>> scope : snapshot().entrySet()) {
+            double scopeMs = 0;
+            for (Map.Entry<String, Double> phase : scope.getValue().entrySet()) {
+                scopeMs += phase.getValue();
+                if (MODULE.equals(scope.getKey())) {
+                    dexKitMs += phase.getValue();
+                }
+            }
+            if (!MODULE.equals(scope.getKey()) && scopeMs > slowestMs) {
+                slowestMs = scopeMs;
+                slowest = scope.getKey();
+            }
+        }
+
+        sb.append("\nDexKit ").append(format(dexKitMs)).append("ms");
+        if (slowest != null) {
+            sb.append(", slowest ").append(slowest).append(" ").append(format(slowestMs)).append("ms");
+        }
+
+        long[] before = memory.get("beforeRelease");
+        long[] after = memory.get("afterRelease");
+        if (before != null && after != null && before[0] >= 0 && after[0] >= 0) {
+            sb.append("\nDexKit released: RSS -").append((before[0] - after[0]) / 1024).append(" MB");
+        }
+        return sb.toString();
+    }
+
+    // scope -> phase -> total milliseconds, sorted for a stable report
+    private static Map<String, Map<String, Double>> snapshot() {
+        Map<String, Map<String, Double>> result = new TreeMap<>();
+        for (Map.Entry<String, Map<String, Phase>> scope : phases.entrySet()) {
+            Map<String, Double> scopePhases = new TreeMap<>();
+            for (Map.Entry<String, Phase> phase : scope.getValue().entrySet()) {
+                scopePhases.put(phase.getKey(), phase.getValue().totalNs.get() / 10_000 / 100.0);
+            }
+            result.put(scope.getKey(), scopePhases);
+        }
+        return result;
+    }
+
+    // VmRSS from /proc/self/status, or -1 if unavailable
+    private static long readRssKb() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (Throwable ignored) {
+        }
+        return -1;
+    }
+
+    private static long elapsedMsSinceAttach() {
+        return (SystemClock.elapsedRealtimeNanos() - attachStartNs) / 1_000_000;
+    }
+
+    private static String format(double ms) {
+        return String.format(Locale.US, "%.0f", ms);
+    }
+
+    private static void record(String scope, String phase, long durationNs) {
+        Phase entry = phases.computeIfAbsent(scope, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(phase, k -> new Phase());
+        entry.count.incrementAndGet();
+        entry.totalNs.addAndGet(durationNs);
+    }
+
+    /**
+     * A timed section; must be closed on the thread that opened it.
+     */
+    public static class Section implements AutoCloseable {
+        private final String scope;
+        private final String phase;
+        private final long startNs;
+
+        Section(String scope, String phase) {
+            this.scope = scope;
+            this.phase = phase;
+            String name = "InstaEclipse:" + scope + ":" + phase;
+            Trace.beginSection(name.length() > MAX_SECTION_NAME ? name.substring(0, MAX_SECTION_NAME) : name);
+            this.startNs = SystemClock.elapsedRealtimeNanos();
+        }
+
+        @Override
+        public void close() {
+            record(scope, phase, SystemClock.elapsedRealtimeNanos() - startNs);
+            Trace.endSection();
+        }
+    }
+
+    private static class Report {
+        String process;
+        String profile;
+        long attachMs;
+        long discoveryMs;
+        Map<String, Map<String, Double>> phases;
+        Map<String, long[]> memoryKb;
+        Map<String, Long> firstHookMs;
+    }
+}
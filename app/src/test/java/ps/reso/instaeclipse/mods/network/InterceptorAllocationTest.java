@@ -0,0 +1,125 @@
+package ps.reso.instaeclipse.mods.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.net.URI;
+
+import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+/**
+ * The startRequest hook runs for every request, so its common paths must not allocate.
+ * Allocation is read from the JVM's per-thread counter after the JIT has warmed up.
+ */
+public class InterceptorAllocationTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int CALLS = 1_000_000;
+    // Slack for counter noise; the old field lookup alone cost ~104 B per request
+    private static final double MAX_BYTES_PER_REQUEST = 1.0;
+
+    private static final URI[] FEED = {
+            URI.create("https://i.instagram.com/api/v1/feed/timeline/?max_id=1"),
+            URI.create("https://i.instagram.com/api/v1/media/1/info/"),
+    };
+    private static final URI[] ADS = {
+            URI.create("https://i.instagram.com/api/v1/async_ads/x?a=1"),
+    };
+
+    // Stands in for Tigon's request object
+    private static final class Request {
+        URI uri;
+    }
+
+    private Field uriField;
+    private Field userRules;
+    private Object previousUserRules;
+
+    @Before
+    public void setUp() throws Exception {
+        uriField = Request.class.getDeclaredField("uri");
+        uriField.setAccessible(true);
+        // No rules file here; skip the XSharedPreferences load
+        userRules = UserBlocklist.class.getDeclaredField("compiled");
+        userRules.setAccessible(true);
+        previousUserRules = userRules.get(null);
+        userRules.set(null, new UriMatcher[0]);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        userRules.set(null, previousUserRules);
+        FeatureFlags.isAdBlockEnabled = false;
+        FeatureFlags.isAnalyticsBlocked = false;
+        FeatureFlags.publish();
+    }
+
+    @Test
+    public void returnsBeforeReadingTheUriWhenNothingIsEnabled() throws Exception {
+        EndpointObservers.register("/api/v1/friendships/show/", FlagSnapshot.SHOW_FOLLOWER_TOAST,
+                (uri, path, prefixEnd) -> {
+                });
+        FeatureFlags.publish();
+
+        // Reading the URI from a null request would throw
+        Interceptor.intercept(null, uriField);
+    }
+
+    @Test
+    public void nothingEnabledAllocatesNothing() throws Exception {
+        FeatureFlags.publish();
+
+        assertAllocationFree("nothing enabled", FEED);
+    }
+
+    @Test
+    public void unmatchedRequestsAllocateNothing() throws Exception {
+        FeatureFlags.isAdBlockEnabled = true;
+        FeatureFlags.isAnalyticsBlocked = true;
+        FeatureFlags.publish();
+
+        assertAllocationFree("unmatched", FEED);
+    }
+
+    @Test
+    public void redirectedRequestsAllocateNothing() throws Exception {
+        FeatureFlags.isAdBlockEnabled = true;
+        FeatureFlags.publish();
+
+        Request request = assertAllocationFree("redirected", ADS);
+        assertEquals("127.0.0.1", request.uri.getHost());
+    }
+
+    private Request assertAllocationFree(String label, URI[] uris) throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Request request = new Request();
+        run(request, uris, WARMUP);
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        run(request, uris, CALLS);
+        double perRequest = (threads.getThreadAllocatedBytes(thread) - before) / (double) CALLS;
+
+        assertTrue(label + ": " + perRequest + " B per request", perRequest <= MAX_BYTES_PER_REQUEST);
+        return request;
+    }
+
+    private void run(Request request, URI[] uris, int calls) throws Exception {
+        for (int i = 0; i < calls; i++) {
+            request.uri = uris[i % uris.length];
+            Interceptor.intercept(request, uriField);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Random;
+
+/**
+ * Random request URIs built from the segments the Interceptor rules look for, so that most
+ * rules hit and miss by a single segment.
+ */
+class RandomUris {
+
+    private static final String[] HOSTS = {
+            "i.instagram.com", "b.i.instagram.com", "graph.instagram.com", "graph.facebook.com",
+            "scontent.cdninstagram.com", "www.instagram.com",
+    };
+    private static final String[] SEGMENTS = {
+            "api", "v1", "v2", "direct", "direct_v2", "threads", "items", "item_seen", "item_replayed",
+            "screenshot", "ephemeral_screenshot", "media", "seen", "comments", "live", "heartbeat_and_get_viewer_count",
+            "feed", "timeline", "reels_tray", "reels_media", "reels_media_stream", "get_latest_reel_media",
+            "pending_inbox", "stories", "story", "hallpass", "qp", "batch_fetch", "clips", "discover", "mixed_media",
+            "stream", "topical_explore", "topical_explore_stream", "fbsearch", "top_serp", "profile_ads",
+            "get_profile_ads", "async_ads", "injected_reels_media", "ads", "graphql", "logging_client_events",
+            "friendships", "show", "users", "info",
+    };
+    private static final String[] ENDPOINTS = {
+            "/api/v1/direct_v2/threads/#/items/#/item_seen/",
+            "/api/v1/direct_v2/visual_item_seen/",
+            "/api/v1/direct_v2/threads/#/items/#/item_replayed/",
+            "/api/v1/media/#/screenshot/",
+            "/api/v1/media/#/ephemeral_screenshot/",
+            "/api/v2/media/seen/",
+            "/api/v1/live/#/heartbeat_and_get_viewer_count/",
+            "/api/v1/feed/reels_tray/",
+            "/api/v1/feed/get_latest_reel_media/",
+            "/api/v1/stories/hallpass/",
+            "/api/v1/feed/reels_media_stream/",
+            "/api/v1/feed/timeline/",
+            "/api/v1/qp/batch_fetch/",
+            "/api/v1/clips/home/",
+            "/api/v1/clips/discover/",
+            "/api/v1/clips/music/",
+            "/api/v1/direct_v2/clips/#/",
+            "/api/v1/mixed_media/discover/stream/",
+            "/api/v1/discover/topical_explore/",
+            "/api/v1/discover/topical_explore_stream/",
+            "/api/v1/fbsearch/top_serp/",
+            "/api/v1/media/#/comments/",
+            "/api/v1/media/#/stream_comments/",
+            "/api/v1/profile_ads/get_profile_ads/",
+            "/api/v1/async_ads/",
+            "/api/v1/feed/injected_reels_media/",
+            "/api/v1/ads/graphql/",
+            "/api/v1/ads/graphql/extra/",
+            "/logging_client_events",
+            "/api/v1/friendships/show/#/",
+            "/api/v1/users/#/info/",
+    };
+    private static final String[] QUERY_PARAMS = {
+            "max_id=QVFE", "next_media_ids=[1,2]", "count=12", "surface=feed", "is_prefetch=1",
+            "prefetch_reason=auto", "reason=cold_start",
+    };
+
+    private final Random random;
+    private final boolean prefetchQueries;
+
+    /**
+     * {@code prefetchQueries} allows the query parameters that {@link PrefetchPolicy} looks for.
+     */
+    RandomUris(long seed, boolean prefetchQueries) {
+        this.random = new Random(seed);
+        this.prefetchQueries = prefetchQueries;
+    }
+
+    URI next() {
+        try {
+            String host = HOSTS[random.nextInt(HOSTS.length)];
+            return new URI("https", host, random.nextInt(10) < 4 ? endpoint() : path(), query(), null);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A real endpoint with fresh IDs
+    private String endpoint() {
+        String template = ENDPOINTS[random.nextInt(ENDPOINTS.length)];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '#') sb.append(id());
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // Random segments; IDs, a missing trailing slash and '?' in the path are all fair game
+    private String path() {
+        StringBuilder sb = new StringBuilder("/");
+        int segments = 1 + random.nextInt(7);
+        for (int i = 0; i < segments; i++) {
+            if (i > 0) sb.append('/');
+            int pick = random.nextInt(SEGMENTS.length + 6);
+            if (pick < SEGMENTS.length) sb.append(SEGMENTS[pick]);
+            else if (pick == SEGMENTS.length) sb.append("pending_inbox?visual_message");
+            else sb.append(id());
+        }
+        if (random.nextBoolean()) sb.append('/');
+        return sb.toString();
+    }
+
+    private String id() {
+        return Long.toString(1 + (long) (random.nextDouble() * 1e12));
+    }
+
+    private String query() {
+        int params = random.nextInt(4);
+        if (params == 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < params; i++) {
+            String param;
+            do {
+                param = QUERY_PARAMS[random.nextInt(QUERY_PARAMS.length)];
+            } while (!prefetchQueries && param.contains("prefetch"));
+            if (i > 0) sb.append('&');
+            sb.append(param);
+        }
+        return sb.toString();
+    }
+}
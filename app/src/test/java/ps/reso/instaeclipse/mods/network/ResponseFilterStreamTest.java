@@ -0,0 +1,136 @@
+package ps.reso.instaeclipse.mods.network;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class ResponseFilterStreamTest {
+
+    @Test
+    public void dropsFeedItemsWithAnAdMarker() throws IOException {
+        assertEquals("{\"feed_items\":[{\"media_or_ad\":{\"id\":\"1\"}},{\"media_or_ad\":{\"id\":\"3\"}}],\"more_available\":true}",
+                filter("{\"feed_items\":[{\"media_or_ad\":{\"id\":\"1\"}},{\"media_or_ad\":{\"id\":\"2\",\"ad_id\":\"9\"}},"
+                        + "{\"media_or_ad\":{\"id\":\"3\"}}],\"more_available\":true}"));
+    }
+
+    @Test
+    public void dropsLeadingAndTrailingAds() throws IOException {
+        // Whitespace before a separator belongs to the item before it
+        assertEquals("{\"items\":[{\"id\":\"2\"} ]}",
+                filter("{\"items\":[{\"id\":\"1\",\"ad_metadata\":[{\"k\":1}]}, {\"id\":\"2\"} ,{\"ad_id\":\"3\"}]}"));
+        assertEquals("{\"items\":[]}", filter("{\"items\":[{\"ad_id\":\"1\"},{\"ad_id\":\"2\"}]}"));
+    }
+
+    @Test
+    public void keepsItemsWhoseMarkersAreUnset() throws IOException {
+        String json = "{\"items\":[{\"id\":\"1\",\"ad_id\":null},{\"id\":\"2\",\"ad_metadata\":[]},"
+                + "{\"id\":\"3\",\"ad_id\":\"\"},{\"id\":\"4\",\"ad_metadata\": { } ,\"ad_id\":false}]}";
+        assertEquals(json, filter(json));
+    }
+
+    @Test
+    public void dropsItemsWhoseMarkersAreSet() throws IOException {
+        assertEquals("{\"items\":[]}", filter("{\"items\":[{\"ad_id\":123},{\"ad_id\":true},"
+                + "{\"ad_metadata\":{\"tracking\":null}},{\"ad_metadata\":[null]},{\"ad_id\":\"\\u0031\"}]}"));
+    }
+
+    @Test
+    public void keepsInjectedItemsWithoutAnAdMarker() throws IOException {
+        String json = "{\"feed_items\":[{\"suggested_users\":{\"injected\":{\"label\":\"Suggested\"}}}]}";
+        assertEquals(json, filter(json));
+    }
+
+    @Test
+    public void ignoresMarkersDeeperThanOneWrapper() throws IOException {
+        String json = "{\"items\":[{\"media\":{\"carousel\":{\"ad_id\":\"1\"}}}]}";
+        assertEquals(json, filter(json));
+    }
+
+    @Test
+    public void leavesNestedItemArraysAlone() throws IOException {
+        String json = "{\"thread\":{\"items\":[{\"item_type\":\"media_share\",\"media_share\":{\"ad_id\":\"1\"}},{\"ad_id\":\"2\"}]}}";
+        assertEquals(json, filter(json));
+    }
+
+    @Test
+    public void stringsCannotOpenOrCloseStructure() throws IOException {
+        String json = "{\"caption\":\"\\\"items\\\":[{\\\"ad_id\\\"\",\"items\":[{\"text\":\"],{\\\"ad_id\\\":\\\"x\\\"}\"},{\"ad_id\":\"1\"}]}";
+        assertEquals("{\"caption\":\"\\\"items\\\":[{\\\"ad_id\\\"\",\"items\":[{\"text\":\"],{\\\"ad_id\\\":\\\"x\\\"}\"}]}", filter(json));
+    }
+
+    @Test
+    public void passesEverythingThroughWhenNotStripping() throws IOException {
+        String json = "{\"items\":[{\"ad_id\":\"1\"}, {\"id\":\"2\"}]}";
+        assertEquals(json, read(new ResponseFilterStream(stream(json), false, false), 4096));
+    }
+
+    @Test
+    public void resultDoesNotDependOnReadSizes() throws IOException {
+        StringBuilder sb = new StringBuilder("{\"feed_items\":[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"media_or_ad\":{\"id\":\"").append(i).append("\",\"caption\":\"é ünïcode ✓ ").append(i).append('"');
+            if (i % 7 == 0) sb.append(",\"ad_id\":\"").append(i).append('"');
+            if (i % 5 == 0) sb.append(",\"ad_metadata\":[]");
+            sb.append("}}");
+        }
+        String json = sb.append("]}").toString();
+
+        String expected = filter(json);
+        Random random = new Random(15);
+        for (int run = 0; run < 20; run++) {
+            InputStream trickle = new TrickleStream(json.getBytes(StandardCharsets.UTF_8), random);
+            assertEquals(expected, read(new ResponseFilterStream(trickle, true, false), 1 + random.nextInt(64)));
+        }
+        assertEquals(expected, readByByte(new ResponseFilterStream(stream(json), true, false)));
+    }
+
+    private static String filter(String json) throws IOException {
+        return read(new ResponseFilterStream(stream(json), true, false), 8192);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(InputStream in, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[chunk];
+        int n;
+        while ((n = in.read(buffer, 0, chunk)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String readByByte(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0) {
+            out.write(b);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Hands out a few bytes per read, like a slow network body
+    private static final class TrickleStream extends ByteArrayInputStream {
+        private final Random random;
+
+        TrickleStream(byte[] bytes, Random random) {
+            super(bytes);
+            this.random = random;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package ps.reso.instaeclipse.mods.network;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import ps.reso.instaeclipse.utils.feature.FeatureFlags;
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+/**
+ * Replays logs written by {@link TrafficRecorder} through the rule matcher, off device.
+ * <p>
+ * Pull the logs with {@code adb shell su -c cat /data/data/com.instagram.android/files/instaeclipse/traffic/traffic.bin > traffic.bin}
+ * and run against the module's compiled classes (no Android classes are needed). The tool lives
+ * in the unit test sources so it never ships in the APK:
+ * <pre>
+ * ./gradlew :app:compileDebugUnitTestJavaWithJavac
+ * java -cp app/build/intermediates/javac/debug/compileDebugJavaWithJavac/classes:app/build/intermediates/javac/debugUnitTest/compileDebugUnitTestJavaWithJavac/classes \
+ *     ps.reso.instaeclipse.mods.network.TrafficReplay [--rules SPEC] [--against SPEC] [--passes N] traffic.bin...
+ * </pre>
+ * A rule SPEC is a comma-separated list of {@link FeatureFlags} names, {@code metered} and
+ * {@code blocklist=<file>} (a {@link UserBlocklist} rules file); {@code recorded} stands for the
+ * flags stored in the first log. {@code --rules} defaults to {@code recorded}; without
+ * {@code --against}, verdicts are compared with the ones recorded on the device.
+ * <p>
+ * Reports throughput and per-request latency of the matcher (first pass on an empty verdict
+ * cache, then warm passes), the hook time recorded on the device, and every request whose
+ * verdict differs between the two rule versions.
+ */
+public class TrafficReplay {
+
+    private static final String RECORDED = "recorded";
+    private static final String BLOCKLIST = "blocklist=";
+    private static final int MAX_DIFFS_SHOWN = 40;
+
+    private static final PrintStream out = System.out;
+
+    /**
+     * One version of the rules: the built-in matcher followed by the user blocklist, in the
+     * Interceptor's order.
+     */
+    private static final class RuleSet {
+        final String name;
+        final UriMatcher[] matchers;
+
+        RuleSet(String name, UriMatcher[] matchers) {
+            this.name = name;
+            this.matchers = matchers;
+        }
+
+        UriRule classify(URI uri, String path) {
+            for (UriMatcher matcher : matchers) {
+                int verdict = matcher.classify(uri, path);
+                if (verdict != UriMatcher.NO_MATCH) return matcher.rule(verdict);
+            }
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String rulesSpec = RECORDED;
+        String againstSpec = null;
+        int passes = 5;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rules":
+                    rulesSpec = args[++i];
+                    break;
+                case "--against":
+                    againstSpec = args[++i];
+                    break;
+                case "--passes":
+                    passes = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                default:
+                    files.add(args[i]);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: TrafficReplay [--rules SPEC] [--against SPEC] [--passes N] traffic.bin...");
+            System.exit(2);
+        }
+
+        List<String> recordedFlags = new ArrayList<>();
+        List<TrafficLog.Request> requests = read(files, recordedFlags);
+        out.println("Requests: " + requests.size() + " from " + files.size() + " file(s)");
+        out.println("Recorded flags: " + String.join(",", recordedFlags));
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        URI[] uris = new URI[requests.size()];
+        for (int i = 0; i < uris.length; i++) {
+            TrafficLog.Request request = requests.get(i);
+            uris[i] = new URI("https", request.host.isEmpty() ? null : request.host, request.path, request.query.isEmpty() ? null : request.query, null);
+        }
+
+        // Measure first: the cold pass needs an empty verdict cache
+        RuleSet rules = build(rulesSpec, recordedFlags);
+        benchmark(rules, uris, passes);
+        reportRecordedHookTime(requests);
+
+        String[] current = new String[uris.length];
+        for (int i = 0; i < uris.length; i++) {
+            current[i] = describe(rules.classify(uris[i], uris[i].getPath()));
+        }
+        String[] baseline = new String[uris.length];
+        String baselineName;
+        if (againstSpec == null) {
+            baselineName = "device";
+            for (int i = 0; i < uris.length; i++) {
+                TrafficLog.Request request = requests.get(i);
+                baseline[i] = describe(request.verdict, request.rule);
+            }
+        } else {
+            RuleSet against = build(againstSpec, recordedFlags);
+            baselineName = against.name;
+            for (int i = 0; i < uris.length; i++) {
+                baseline[i] = describe(against.classify(uris[i], uris[i].getPath()));
+            }
+        }
+        reportDiffs(requests, baselineName, baseline, rules.name, current);
+    }
+
+    private static List<TrafficLog.Request> read(List<String> files, List<String> recordedFlags) throws IOException {
+        List<TrafficLog.Request> requests = new ArrayList<>();
+        for (String file : files) {
+            try (TrafficLog.Reader reader = new TrafficLog.Reader(new FileInputStream(file))) {
+                if (recordedFlags.isEmpty()) {
+                    recordedFlags.addAll(reader.flags);
+                }
+                TrafficLog.Request request;
+                while ((request = reader.next()) != null) {
+                    requests.add(request);
+                }
+            }
+        }
+        return requests;
+    }
+
+    private static RuleSet build(String spec, List<String> recordedFlags) throws Exception {
+        Set<String> flags = new LinkedHashSet<>();
+        List<String> blocklists = new ArrayList<>();
+        for (String token : spec.split(",")) {
+            token = token.trim();
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (token.equals(RECORDED)) {
+                flags.addAll(recordedFlags);
+            } else if (token.startsWith(BLOCKLIST)) {
+                blocklists.add(token.substring(BLOCKLIST.length()));
+            } else {
+                flags.add(token);
+            }
+        }
+
+        // FeatureFlags is global state; set it, compile, and leave the result immutable
+        for (Field field : FeatureFlags.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == boolean.class) {
+                field.setBoolean(null, false);
+            }
+        }
+        PrefetchPolicy.assumeMetered = flags.remove(TrafficLog.METERED);
+        for (String flag : flags) {
+            Field field;
+            try {
+                field = FeatureFlags.class.getField(flag);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("Unknown flag '" + flag + "' in '" + spec + "'");
+            }
+            field.setBoolean(null, true);
+        }
+
+        FeatureFlags.publish();
+        FlagSnapshot snapshot = FeatureFlags.snapshot();
+
+        List<UriMatcher> matchers = new ArrayList<>();
+        matchers.add(UriMatcher.compile(UriRules.fromFlags(snapshot), UriRules.flagsKey(snapshot)));
+        for (String blocklist : blocklists) {
+            String text = new String(Files.readAllBytes(Paths.get(blocklist)), StandardCharsets.UTF_8);
+            List<String> errors = new ArrayList<>();
+            List<UriRule> userRules = UserBlocklist.parse(text, errors);
+            for (String error : errors) {
+                System.err.println(blocklist + ": " + error);
+            }
+            matchers.addAll(Arrays.asList(UserBlocklist.compile(userRules)));
+        }
+        return new RuleSet(spec, matchers.toArray(new UriMatcher[0]));
+    }
+
+    private static void benchmark(RuleSet rules, URI[] uris, int passes) {
+        String[] paths = new String[uris.length];
+        for (int i = 0; i < uris.length; i++) paths[i] = uris[i].getPath();
+
+        long[] latencies = new long[uris.length];
+        for (int pass = 0; pass < passes; pass++) {
+            int sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < uris.length; i++) {
+                long t = System.nanoTime();
+                if (rules.classify(uris[i], paths[i]) != null) sink++;
+                latencies[i] = System.nanoTime() - t;
+            }
+            long elapsed = System.nanoTime() - start;
+            report(pass == 0 ? "Cold pass" : "Warm pass " + pass, uris.length, elapsed, latencies, sink);
+        }
+    }
+
+    private static void report(String label, int count, long elapsedNs, long[] latencies, int matched) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        out.println(String.format(Locale.US,
+                "%-12s %,10.0f req/s  p50 %,6d ns  p90 %,6d ns  p99 %,7d ns  max %,9d ns  (%d matched)",
+                label, count * 1e9 / Math.max(1, elapsedNs),
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), sorted[sorted.length - 1], matched));
+    }
+
+    private static void reportRecordedHookTime(List<TrafficLog.Request> requests) {
+        long[] sorted = new long[requests.size()];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = requests.get(i).hookNanos;
+        Arrays.sort(sorted);
+        out.println(String.format(Locale.US,
+                "On device    hook time   p50 %,6d ns  p90 %,6d ns  p99 %,7d ns  max %,9d ns",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static void reportDiffs(List<TrafficLog.Request> requests, String baselineName, String[] baseline,
+                                    String currentName, String[] current) {
+        // "endpoint | before -> after" -> count, in order of first appearance
+        Map<String, Integer> diffs = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(baseline[i])) {
+                continue;
+            }
+            total++;
+            TrafficLog.Request request = requests.get(i);
+            String endpoint = request.host + request.path + (request.query.isEmpty() ? "" : "?" + request.query);
+            String key = endpoint + " | " + baseline[i] + " -> " + current[i];
+            Integer count = diffs.get(key);
+            if (count == null) order.add(key);
+            diffs.put(key, count == null ? 1 : count + 1);
+        }
+
+        out.println();
+        out.println("Verdict diffs (" + baselineName + " -> " + currentName + "): " + total
+                + " request(s), " + diffs.size() + " distinct");
+        order.sort((a, b) -> diffs.get(b) - diffs.get(a));
+        for (int i = 0; i < order.size() && i < MAX_DIFFS_SHOWN; i++) {
+            out.println(String.format(Locale.US, "%6d  %s", diffs.get(order.get(i)), order.get(i)));
+        }
+        if (order.size() > MAX_DIFFS_SHOWN) {
+            out.println("   ... " + (order.size() - MAX_DIFFS_SHOWN) + " more");
+        }
+    }
+
+    private static String describe(UriRule rule) {
+        if (rule == null) return "pass";
+        return (rule.exempt ? "exempt " : "block ") + rule.key();
+    }
+
+    private static String describe(byte verdict, String rule) {
+        if (verdict == TrafficLog.NO_MATCH) return "pass";
+        return (verdict == TrafficLog.EXEMPT ? "exempt " : "block ") + rule;
+    }
+}
@@ -0,0 +1,187 @@
+package ps.reso.instaeclipse.mods.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+public class UriMatcherTest {
+
+    private static final long[] RULE_FLAGS = {
+            FlagSnapshot.GHOST_SCREENSHOT, FlagSnapshot.GHOST_VIEW_ONCE, FlagSnapshot.GHOST_STORY,
+            FlagSnapshot.GHOST_LIVE, FlagSnapshot.DISABLE_STORIES, FlagSnapshot.DISABLE_FEED,
+            FlagSnapshot.DISABLE_REELS, FlagSnapshot.DISABLE_REELS_EXCEPT_DM, FlagSnapshot.DISABLE_EXPLORE,
+            FlagSnapshot.DISABLE_COMMENTS, FlagSnapshot.AD_BLOCK, FlagSnapshot.ANALYTICS_BLOCKED,
+    };
+
+    @Before
+    public void setUp() {
+        PrefetchPolicy.assumeMetered = false;
+    }
+
+    @After
+    public void tearDown() {
+        PrefetchPolicy.assumeMetered = null;
+    }
+
+    @Test
+    public void compiledRulesMatchTheOriginalPredicates() {
+        Random random = new Random(11);
+        RandomUris uris = new RandomUris(11, false);
+        int checked = 0;
+
+        for (int combo = 0; combo < 200; combo++) {
+            // Every flag alone first, then random combinations
+            long bits = combo < RULE_FLAGS.length ? RULE_FLAGS[combo] : randomFlags(random);
+            FlagSnapshot flags = flags(bits);
+            UriMatcher matcher = UriMatcher.compile(UriRules.fromFlags(flags), UriRules.flagsKey(flags));
+
+            for (int i = 0; i < 2000; i++) {
+                URI uri = uris.next();
+                boolean expected = legacyShouldDrop(uri, flags);
+                assertEquals(describe(uri, bits), expected, blocks(matcher, matcher.evaluate(uri, uri.getPath())));
+                checked++;
+            }
+        }
+        assertEquals(400_000, checked);
+    }
+
+    @Test
+    public void directRequestsAreExemptFromEveryRuleUnderReelsExceptDm() {
+        FlagSnapshot flags = flags(allRuleFlags());
+        UriMatcher matcher = UriMatcher.compile(UriRules.fromFlags(flags), UriRules.flagsKey(flags));
+
+        for (String path : Arrays.asList("/api/v1/direct_v2/threads/1/items/2/item_seen/",
+                "/api/v1/direct_v2/clips/discover/", "/api/v1/direct_v2/media/1/screenshot/")) {
+            URI uri = URI.create("https://i.instagram.com" + path);
+            int verdict = matcher.evaluate(uri, uri.getPath());
+            assertTrue(path, verdict != UriMatcher.NO_MATCH && matcher.rule(verdict).exempt);
+        }
+        URI outside = URI.create("https://i.instagram.com/api/v1/media/1/screenshot/");
+        assertTrue(blocks(matcher, matcher.evaluate(outside, outside.getPath())));
+    }
+
+    @Test
+    public void prefetchRulesNeedTheQueryMarker() {
+        FlagSnapshot flags = flags(FlagSnapshot.DISABLE_COMMENTS);
+        UriMatcher matcher = UriMatcher.compile(UriRules.fromFlags(flags), UriRules.flagsKey(flags));
+
+        URI prefetch = URI.create("https://i.instagram.com/api/v1/media/1/preview_comments/?is_prefetch=1");
+        URI plain = URI.create("https://i.instagram.com/api/v1/feed/timeline/?is_prefetch=1");
+        assertTrue(blocks(matcher, matcher.evaluate(prefetch, prefetch.getPath())));
+        assertFalse(blocks(matcher, matcher.evaluate(plain, plain.getPath())));
+    }
+
+    @Test
+    public void emptyRuleListMatchesNothing() {
+        UriMatcher matcher = UriMatcher.compile(Collections.emptyList(), 0);
+        URI uri = URI.create("https://graph.instagram.com/logging_client_events");
+        assertTrue(matcher.isEmpty());
+        assertEquals(UriMatcher.NO_MATCH, matcher.classify(uri, uri.getPath()));
+    }
+
+    static FlagSnapshot flags(long bits) {
+        return FlagSnapshot.fromWord(bits);
+    }
+
+    static long randomFlags(Random random) {
+        long bits = 0;
+        for (long flag : RULE_FLAGS) {
+            if (random.nextInt(3) == 0) bits |= flag;
+        }
+        return bits;
+    }
+
+    static long allRuleFlags() {
+        long bits = 0;
+        for (long flag : RULE_FLAGS) bits |= flag;
+        return bits;
+    }
+
+    static boolean blocks(UriMatcher matcher, int verdict) {
+        return verdict != UriMatcher.NO_MATCH && !matcher.rule(verdict).exempt;
+    }
+
+    static String describe(URI uri, long bits) {
+        return uri + " with flags 0x" + Long.toHexString(bits);
+    }
+
+    // The Interceptor's checks before the rules were compiled, kept as the reference
+    private static boolean legacyShouldDrop(URI uri, FlagSnapshot flags) {
+        String path = uri.getPath();
+        boolean shouldDrop = false;
+
+        if (flags.has(FlagSnapshot.GHOST_SCREENSHOT)) {
+            shouldDrop |= path.endsWith("/screenshot/") || path.endsWith("/ephemeral_screenshot/");
+        }
+        if (flags.has(FlagSnapshot.GHOST_VIEW_ONCE)) {
+            shouldDrop |= path.endsWith("/item_replayed/");
+            shouldDrop |= (path.contains("/direct") && path.endsWith("/item_seen/"));
+        }
+        if (flags.has(FlagSnapshot.GHOST_STORY)) {
+            shouldDrop |= path.contains("/api/v2/media/seen/");
+        }
+        if (flags.has(FlagSnapshot.GHOST_LIVE)) {
+            shouldDrop |= path.contains("/heartbeat_and_get_viewer_count/");
+        }
+
+        if (flags.has(FlagSnapshot.DISABLE_STORIES)) {
+            shouldDrop |= path.contains("/feed/reels_tray/")
+                    || path.contains("feed/get_latest_reel_media/")
+                    || path.contains("direct_v2/pending_inbox/?visual_message")
+                    || path.contains("stories/hallpass/")
+                    || path.contains("/api/v1/feed/reels_media_stream/");
+        }
+        if (flags.has(FlagSnapshot.DISABLE_FEED)) {
+            shouldDrop |= path.endsWith("/feed/timeline/");
+        }
+        if (flags.has(FlagSnapshot.DISABLE_REELS) && !flags.has(FlagSnapshot.DISABLE_REELS_EXCEPT_DM)) {
+            shouldDrop |= path.endsWith("/qp/batch_fetch/")
+                    || path.contains("api/v1/clips")
+                    || path.contains("clips")
+                    || path.contains("mixed_media")
+                    || path.contains("mixed_media/discover/stream/");
+        }
+        if (flags.has(FlagSnapshot.DISABLE_REELS_EXCEPT_DM)) {
+            if (path.startsWith("/api/v1/direct_v2/")) {
+                return false;
+            }
+            shouldDrop |= (path.startsWith("/api/v1/clips/") && uri.getQuery() != null
+                    && (uri.getQuery().contains("next_media_ids=") || uri.getQuery().contains("max_id=")))
+                    || path.contains("/clips/discover/")
+                    || path.contains("/mixed_media/discover/stream/");
+        }
+        if (flags.has(FlagSnapshot.DISABLE_EXPLORE)) {
+            shouldDrop |= path.contains("/discover/topical_explore")
+                    || path.contains("/discover/topical_explore_stream")
+                    || (uri.getHost().contains("i.instagram.com") && path.contains("/api/v1/fbsearch/top_serp/"));
+        }
+        if (flags.has(FlagSnapshot.DISABLE_COMMENTS)) {
+            shouldDrop |= path.contains("/api/v1/media/") && path.contains("comments/");
+        }
+
+        if (flags.has(FlagSnapshot.AD_BLOCK)) {
+            shouldDrop |= path.contains("profile_ads/get_profile_ads/")
+                    || path.contains("/async_ads/")
+                    || path.contains("/feed/injected_reels_media/")
+                    || path.equals("/api/v1/ads/graphql/");
+        }
+
+        if (flags.has(FlagSnapshot.ANALYTICS_BLOCKED)) {
+            shouldDrop |= uri.getHost().contains("graph.instagram.com")
+                    || uri.getHost().contains("graph.facebook.com")
+                    || path.contains("/logging_client_events");
+        }
+        return shouldDrop;
+    }
+}
@@ -0,0 +1,92 @@
+package ps.reso.instaeclipse.mods.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserBlocklistTest {
+
+    @Test
+    public void parsesEachRuleType() {
+        List<String> errors = new ArrayList<>();
+        List<UriRule> rules = UserBlocklist.parse(
+                "host   Graph.Example.com   # host contains\n"
+                        + "prefix /api/v1/some/\n"
+                        + "\n"
+                        + "  # only a comment\n"
+                        + "suffix /log/\r\n"
+                        + "QUERY ad_token\n", errors);
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(5, rules.size());
+        assertEquals("User [host*=graph.example.com]", rules.get(0).key());
+        assertEquals("User [path^=/api/v1/some/]", rules.get(1).key());
+        assertEquals("User [path$=/log/]", rules.get(2).key());
+        assertEquals("User [query^=ad_token=]", rules.get(3).key());
+        assertEquals("User [query*=&ad_token=]", rules.get(4).key());
+        for (UriRule rule : rules) {
+            assertEquals(UriRule.USER, rule.category);
+        }
+    }
+
+    @Test
+    public void reportsBadLinesAndKeepsTheRest() {
+        List<String> errors = new ArrayList<>();
+        List<UriRule> rules = UserBlocklist.parse(
+                "prefix\n"
+                        + "regex .*ads.*\n"
+                        + "suffix /a/ /b/\n"
+                        + "host exämple.com\n"
+                        + "suffix /ok/\n", errors);
+
+        assertEquals(1, rules.size());
+        assertEquals(4, errors.size());
+        assertTrue(errors.get(0), errors.get(0).startsWith("Line 1:"));
+        assertTrue(errors.get(1), errors.get(1).contains("unknown rule type 'regex'"));
+        assertTrue(errors.get(2), errors.get(2).startsWith("Line 3:"));
+        assertTrue(errors.get(3), errors.get(3).contains("ASCII"));
+    }
+
+    @Test
+    public void queryRulesMatchWholeKeysOnly() {
+        UriMatcher[] matchers = UserBlocklist.compile(UserBlocklist.parse("query ad_token", new ArrayList<>()));
+
+        assertTrue(blocked(matchers, "https://i.instagram.com/api/v1/x/?ad_token=1"));
+        assertTrue(blocked(matchers, "https://i.instagram.com/api/v1/x/?a=1&ad_token=1"));
+        assertTrue(!blocked(matchers, "https://i.instagram.com/api/v1/x/?bad_token=1"));
+        assertTrue(!blocked(matchers, "https://i.instagram.com/api/v1/x/?a=ad_token"));
+    }
+
+    @Test
+    public void largeListsAreSplitAcrossMatchers() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            text.append("suffix /endpoint_").append(i).append("/\n");
+        }
+        UriMatcher[] matchers = UserBlocklist.compile(UserBlocklist.parse(text.toString(), new ArrayList<>()));
+
+        assertEquals(3, matchers.length);
+        for (int i = 0; i < 150; i++) {
+            assertTrue(Integer.toString(i), blocked(matchers, "https://i.instagram.com/api/v1/endpoint_" + i + "/"));
+        }
+        assertTrue(!blocked(matchers, "https://i.instagram.com/api/v1/endpoint_150/"));
+    }
+
+    @Test
+    public void emptyListCompilesToNothing() {
+        assertEquals(0, UserBlocklist.compile(UserBlocklist.parse("# nothing yet\n", new ArrayList<>())).length);
+    }
+
+    private static boolean blocked(UriMatcher[] matchers, String url) {
+        URI uri = URI.create(url);
+        for (UriMatcher matcher : matchers) {
+            if (matcher.classify(uri, uri.getPath()) != UriMatcher.NO_MATCH) return true;
+        }
+        return false;
+    }
+}
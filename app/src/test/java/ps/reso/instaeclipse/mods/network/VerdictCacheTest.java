@@ -0,0 +1,91 @@
+package ps.reso.instaeclipse.mods.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import ps.reso.instaeclipse.utils.feature.FlagSnapshot;
+
+public class VerdictCacheTest {
+
+    @Before
+    public void setUp() {
+        PrefetchPolicy.assumeMetered = false;
+    }
+
+    @After
+    public void tearDown() {
+        PrefetchPolicy.assumeMetered = null;
+    }
+
+    @Test
+    public void cachedVerdictsMatchUncachedEvaluation() {
+        Random random = new Random(12);
+        RandomUris uris = new RandomUris(12, true);
+
+        for (int combo = 0; combo < 50; combo++) {
+            long bits = UriMatcherTest.randomFlags(random)
+                    | (random.nextBoolean() ? FlagSnapshot.LIMIT_PREFETCH_ON_METERED : 0);
+            PrefetchPolicy.assumeMetered = random.nextBoolean();
+            FlagSnapshot flags = UriMatcherTest.flags(bits);
+            UriMatcher matcher = UriMatcher.compile(UriRules.fromFlags(flags), UriRules.flagsKey(flags));
+
+            // Revisit earlier URIs often so most lookups are hits, some with the same shape but new IDs
+            List<URI> seen = new ArrayList<>();
+            for (int i = 0; i < 4000; i++) {
+                URI uri = !seen.isEmpty() && random.nextInt(3) > 0 ? seen.get(random.nextInt(seen.size())) : uris.next();
+                seen.add(uri);
+                String path = uri.getPath();
+                assertEquals(UriMatcherTest.describe(uri, bits), matcher.evaluate(uri, path), matcher.classify(uri, path));
+            }
+        }
+    }
+
+    @Test
+    public void paginationIsCheckedOnEveryRequest() {
+        FlagSnapshot flags = UriMatcherTest.flags(FlagSnapshot.DISABLE_REELS_EXCEPT_DM);
+        UriMatcher matcher = UriMatcher.compile(UriRules.fromFlags(flags), UriRules.flagsKey(flags));
+
+        URI first = URI.create("https://i.instagram.com/api/v1/clips/home/");
+        URI next = URI.create("https://i.instagram.com/api/v1/clips/home/?max_id=QVFE");
+        assertFalse(UriMatcherTest.blocks(matcher, matcher.classify(first, first.getPath())));
+        assertTrue(UriMatcherTest.blocks(matcher, matcher.classify(next, next.getPath())));
+        assertFalse(UriMatcherTest.blocks(matcher, matcher.classify(first, first.getPath())));
+    }
+
+    @Test
+    public void idsShareAnEntryUnlessARuleLooksInsideThem() {
+        VerdictCache normalizing = new VerdictCache(16, true);
+        normalizing.put("i.instagram.com", "/api/v1/media/123/comments/", 1, 0);
+        assertNotNull(normalizing.get("i.instagram.com", "/api/v1/media/456/comments/"));
+        assertNull(normalizing.get("i.instagram.com", "/api/v1/media/45a/comments/"));
+        assertNull(normalizing.get("b.i.instagram.com", "/api/v1/media/456/comments/"));
+
+        VerdictCache exact = new VerdictCache(16, false);
+        exact.put("i.instagram.com", "/api/v1/media/123/comments/", 1, 0);
+        assertNull(exact.get("i.instagram.com", "/api/v1/media/456/comments/"));
+    }
+
+    @Test
+    public void ruleOnAnIdSegmentDisablesNormalization() {
+        List<UriRule> rules = Collections.singletonList(UriRule.block("User", UriRule.USER).pathPrefix("/api/v1/media/123/"));
+        UriMatcher matcher = UriMatcher.compile(rules, 0);
+
+        URI blocked = URI.create("https://i.instagram.com/api/v1/media/123/comments/");
+        URI other = URI.create("https://i.instagram.com/api/v1/media/456/comments/");
+        assertEquals(0, matcher.classify(blocked, blocked.getPath()));
+        assertEquals(UriMatcher.NO_MATCH, matcher.classify(other, other.getPath()));
+    }
+}
@@ -0,0 +1,83 @@
+package ps.reso.instaeclipse.utils.feature;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FeatureStatusTrackerTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final FeatureStatusTracker.Listener listener = (feature, enabled, hooked, pending) ->
+            events.add(feature.displayName + " " + enabled + " " + hooked + " " + pending);
+
+    @After
+    public void tearDown() {
+        FeatureStatusTracker.removeListener(listener);
+        for (Feature feature : Feature.all()) {
+            FeatureStatusTracker.setDisabled(feature);
+            FeatureStatusTracker.setResolved(feature);
+        }
+    }
+
+    @Test
+    public void everyFeatureFitsInALane() {
+        assertTrue(Feature.all().length <= FeatureStatusTracker.LANE_BITS);
+    }
+
+    @Test
+    public void bitsetsAreIndependent() {
+        for (Feature feature : Feature.all()) {
+            FeatureStatusTracker.setEnabled(feature);
+            FeatureStatusTracker.setPending(feature);
+            FeatureStatusTracker.setHooked(feature);
+
+            for (Feature other : Feature.all()) {
+                boolean same = other == feature;
+                assertEquals(other.displayName, same, FeatureStatusTracker.isEnabled(other));
+                assertEquals(other.displayName, same, FeatureStatusTracker.isHooked(other));
+                assertEquals(other.displayName, same, FeatureStatusTracker.isPending(other));
+            }
+
+            FeatureStatusTracker.setResolved(feature);
+            assertTrue(FeatureStatusTracker.isHooked(feature));
+            assertFalse(FeatureStatusTracker.isPending(feature));
+            FeatureStatusTracker.setDisabled(feature);
+        }
+    }
+
+    @Test
+    public void onlyEnabledFeaturesCountAsPending() {
+        FeatureStatusTracker.setPending(Feature.GHOST_SEEN);
+        assertFalse(FeatureStatusTracker.hasPendingFeatures());
+
+        FeatureStatusTracker.setEnabled(Feature.GHOST_SEEN);
+        assertTrue(FeatureStatusTracker.hasPendingFeatures());
+
+        FeatureStatusTracker.setResolved(Feature.GHOST_SEEN);
+        assertFalse(FeatureStatusTracker.hasPendingFeatures());
+    }
+
+    @Test
+    public void listenersHearPendingChangesOnce() {
+        FeatureStatusTracker.setEnabled(Feature.AD_BLOCKER);
+        FeatureStatusTracker.addListener(listener);
+
+        FeatureStatusTracker.setPending(Feature.AD_BLOCKER);
+        FeatureStatusTracker.setPending(Feature.AD_BLOCKER);
+        FeatureStatusTracker.setHooked(Feature.AD_BLOCKER);
+        FeatureStatusTracker.setResolved(Feature.AD_BLOCKER);
+        FeatureStatusTracker.setResolved(Feature.AD_BLOCKER);
+
+        List<String> expected = new ArrayList<>();
+        expected.add("AdBlocker true false true");
+        expected.add("AdBlocker true true true");
+        expected.add("AdBlocker true true false");
+        assertEquals(expected, events);
+    }
+}
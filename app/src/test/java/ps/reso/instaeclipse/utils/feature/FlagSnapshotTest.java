@@ -0,0 +1,132 @@
+package ps.reso.instaeclipse.utils.feature;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class FlagSnapshotTest {
+
+    private FlagSnapshot saved;
+
+    @Before
+    public void setUp() {
+        saved = FlagSnapshot.capture();
+    }
+
+    @After
+    public void tearDown() {
+        FeatureFlags.resume(-1L);
+        saved.apply();
+        FeatureFlags.publish();
+    }
+
+    @Test
+    public void wordRoundTripsFlagsAndWidth() {
+        Random random = new Random(23);
+        long all = (1L << FlagSnapshot.flagCount()) - 1;
+        int[] widths = {0, 1, 720, 1080, 4096, 8191};
+
+        for (int i = 0; i < 10_000; i++) {
+            long bits = random.nextLong() & all;
+            int width = widths[random.nextInt(widths.length)];
+            FlagSnapshot snapshot = snapshot(bits, width);
+
+            FlagSnapshot copy = FlagSnapshot.fromWord(snapshot.word);
+            assertEquals(bits, copy.bits);
+            assertEquals(width, copy.dataSaverMaxWidth);
+            assertEquals(snapshot.word, copy.word);
+        }
+    }
+
+    @Test
+    public void publishedWordIsNeverZero() {
+        // LiveFlags reads 0 as "nothing published"
+        assertNotEquals(0L, snapshot(0, 0).word);
+    }
+
+    @Test
+    public void flagConstantsCoverEachBitOnce() throws Exception {
+        Set<Long> flags = new HashSet<>();
+        for (Field field : FlagSnapshot.class.getFields()) {
+            int modifiers = field.getModifiers();
+            if (field.getType() == long.class && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+                long flag = field.getLong(null);
+                assertEquals(field.getName(), 1, Long.bitCount(flag));
+                assertTrue(field.getName(), flags.add(flag));
+            }
+        }
+
+        assertEquals(FlagSnapshot.flagCount(), flags.size());
+        for (int bit = 0; bit < FlagSnapshot.flagCount(); bit++) {
+            assertTrue(Integer.toString(bit), flags.contains(1L << bit));
+        }
+    }
+
+    @Test
+    public void keysNameBooleanFields() throws Exception {
+        for (int bit = 0; bit < FlagSnapshot.flagCount(); bit++) {
+            Field field = FeatureFlags.class.getField(FlagSnapshot.key(bit));
+            assertEquals(field.getName(), boolean.class, field.getType());
+        }
+    }
+
+    @Test
+    public void captureReadsTheFieldEachKeyNames() throws Exception {
+        for (int bit = 0; bit < FlagSnapshot.flagCount(); bit++) {
+            FlagSnapshot.fromWord(0).apply();
+            FeatureFlags.class.getField(FlagSnapshot.key(bit)).setBoolean(null, true);
+
+            assertEquals(FlagSnapshot.key(bit), 1L << bit, FlagSnapshot.capture().bits);
+        }
+    }
+
+    @Test
+    public void applyRestoresCapturedFields() {
+        FlagSnapshot snapshot = snapshot(0x5_5555_5555L & ((1L << FlagSnapshot.flagCount()) - 1), 1080);
+
+        snapshot.apply();
+
+        assertEquals(snapshot.word, FlagSnapshot.capture().word);
+        assertEquals(1080, FeatureFlags.dataSaverMaxWidth);
+    }
+
+    @Test
+    public void suspendedFlagsAreHiddenFromHooksOnly() {
+        FeatureFlags.isGhostSeen = true;
+        FeatureFlags.isGhostTyping = true;
+        FeatureFlags.publish();
+
+        FeatureFlags.suspend(FlagSnapshot.GHOST_SEEN);
+        assertFalse(FeatureFlags.snapshot().has(FlagSnapshot.GHOST_SEEN));
+        assertTrue(FeatureFlags.snapshot().has(FlagSnapshot.GHOST_TYPING));
+        assertTrue(FeatureFlags.published().has(FlagSnapshot.GHOST_SEEN));
+        assertTrue(FeatureFlags.isGhostSeen);
+
+        // Publishing other edits keeps the suspension
+        FeatureFlags.isGhostTyping = false;
+        FeatureFlags.publish();
+        assertFalse(FeatureFlags.snapshot().has(FlagSnapshot.GHOST_SEEN));
+
+        FeatureFlags.resume(FlagSnapshot.GHOST_SEEN);
+        assertTrue(FeatureFlags.snapshot().has(FlagSnapshot.GHOST_SEEN));
+        assertFalse(FeatureFlags.snapshot().has(FlagSnapshot.GHOST_TYPING));
+    }
+
+    private static FlagSnapshot snapshot(long bits, int width) {
+        FlagSnapshot flags = FlagSnapshot.fromWord(bits);
+        flags.apply();
+        FeatureFlags.dataSaverMaxWidth = width;
+        return FlagSnapshot.capture();
+    }
+}